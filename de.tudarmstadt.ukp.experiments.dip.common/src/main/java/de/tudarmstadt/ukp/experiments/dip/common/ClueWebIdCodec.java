@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common;
+
+/**
+ * Reversible encoding of ClueWeb09 ({@code clueweb09-en0000-00-00000}) and ClueWeb12
+ * ({@code clueweb12-0000wb-00-00000}) document IDs into a non-negative {@code long}, so they
+ * can be used as keys of primitive collections (such as {@code LongObjectHashMap} in the wp1
+ * module) and sorted tables ({@code TrecIdTable} in the hadoop module).
+ * <p/>
+ * The fields are packed so that the numeric order of the codes is the same as the
+ * lexicographic order of the IDs:
+ * <pre>
+ * ClueWeb09: bit 48 = 0 | letter (5 bits) | letter (5 bits) | directory (14 bits) | file (7 bits) | record (17 bits)
+ * ClueWeb12: bit 48 = 1 | directory (14 bits) | letter (5 bits) | letter (5 bits) | file (7 bits) | record (17 bits)
+ * </pre>
+ *
+ * @author Ivan Habernal
+ */
+public class ClueWebIdCodec
+{
+    /**
+     * Returned by {@link #encode(CharSequence)} for strings that are not ClueWeb IDs
+     */
+    public static final long INVALID = -1;
+
+    private static final String CLUEWEB09 = "clueweb09-";
+    private static final String CLUEWEB12 = "clueweb12-";
+
+    // clueweb12-0000wb-00-00000
+    private static final int LENGTH = 25;
+
+    private static final long CLUEWEB12_BIT = 1L << 48;
+
+    private ClueWebIdCodec()
+    {
+        // static methods only
+    }
+
+    /**
+     * Encodes the ID
+     *
+     * @param id ID, may be null
+     * @return code or {@link #INVALID} if the ID is not a ClueWeb09/12 document ID
+     */
+    public static long encode(CharSequence id)
+    {
+        if (id == null || id.length() != LENGTH || id.charAt(16) != '-' || id.charAt(19) != '-') {
+            return INVALID;
+        }
+
+        boolean clueWeb12;
+        if (startsWith(id, CLUEWEB12)) {
+            clueWeb12 = true;
+        }
+        else if (startsWith(id, CLUEWEB09)) {
+            clueWeb12 = false;
+        }
+        else {
+            return INVALID;
+        }
+
+        // segment: 0000wb (ClueWeb12) or en0000 (ClueWeb09)
+        int lettersStart = clueWeb12 ? 14 : 10;
+        int directoryStart = clueWeb12 ? 10 : 12;
+
+        int letter1 = letter(id.charAt(lettersStart));
+        int letter2 = letter(id.charAt(lettersStart + 1));
+        int directory = digits(id, directoryStart, 4);
+        int file = digits(id, 17, 2);
+        int record = digits(id, 20, 5);
+
+        if (letter1 < 0 || letter2 < 0 || directory < 0 || file < 0 || record < 0) {
+            return INVALID;
+        }
+
+        long code = ((long) file << 17) | record;
+        if (clueWeb12) {
+            code |= CLUEWEB12_BIT | ((long) directory << 34) | ((long) letter1 << 29)
+                    | ((long) letter2 << 24);
+        }
+        else {
+            code |= ((long) letter1 << 43) | ((long) letter2 << 38) | ((long) directory << 24);
+        }
+
+        return code;
+    }
+
+    /**
+     * Returns true if the string is a ClueWeb09/12 document ID
+     *
+     * @param id ID, may be null
+     * @return boolean
+     */
+    public static boolean isValid(CharSequence id)
+    {
+        return encode(id) != INVALID;
+    }
+
+    /**
+     * Decodes the ID
+     *
+     * @param code code returned by {@link #encode(CharSequence)}
+     * @return ID
+     * @throws IllegalArgumentException if the code is not a valid code
+     */
+    public static String decode(long code)
+    {
+        if (code < 0 || code >= (CLUEWEB12_BIT << 1)) {
+            throw new IllegalArgumentException("Invalid ClueWeb ID code: " + code);
+        }
+
+        boolean clueWeb12 = (code & CLUEWEB12_BIT) != 0;
+
+        int record = (int) (code & 0x1FFFF);
+        int file = (int) ((code >>> 17) & 0x7F);
+        int directory;
+        int letter1;
+        int letter2;
+        if (clueWeb12) {
+            letter2 = (int) ((code >>> 24) & 0x1F);
+            letter1 = (int) ((code >>> 29) & 0x1F);
+            directory = (int) ((code >>> 34) & 0x3FFF);
+        }
+        else {
+            directory = (int) ((code >>> 24) & 0x3FFF);
+            letter2 = (int) ((code >>> 38) & 0x1F);
+            letter1 = (int) ((code >>> 43) & 0x1F);
+        }
+
+        if (record > 99999 || file > 99 || directory > 9999 || letter1 == 0 || letter1 > 26
+                || letter2 == 0 || letter2 > 26) {
+            throw new IllegalArgumentException("Invalid ClueWeb ID code: " + code);
+        }
+
+        StringBuilder sb = new StringBuilder(LENGTH);
+        if (clueWeb12) {
+            sb.append(CLUEWEB12);
+            appendDigits(sb, directory, 4);
+            sb.append((char) ('a' + letter1 - 1)).append((char) ('a' + letter2 - 1));
+        }
+        else {
+            sb.append(CLUEWEB09);
+            sb.append((char) ('a' + letter1 - 1)).append((char) ('a' + letter2 - 1));
+            appendDigits(sb, directory, 4);
+        }
+        sb.append('-');
+        appendDigits(sb, file, 2);
+        sb.append('-');
+        appendDigits(sb, record, 5);
+
+        return sb.toString();
+    }
+
+    private static boolean startsWith(CharSequence s, String prefix)
+    {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (s.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lower-case letter to 1-26, otherwise -1
+     */
+    private static int letter(char c)
+    {
+        return c >= 'a' && c <= 'z' ? c - 'a' + 1 : -1;
+    }
+
+    /**
+     * Parses a fixed number of decimal digits, returns -1 if there is a non-digit
+     */
+    private static int digits(CharSequence s, int from, int count)
+    {
+        int result = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static void appendDigits(StringBuilder sb, int value, int count)
+    {
+        String s = Integer.toString(value);
+        for (int i = s.length(); i < count; i++) {
+            sb.append('0');
+        }
+        sb.append(s);
+    }
+}
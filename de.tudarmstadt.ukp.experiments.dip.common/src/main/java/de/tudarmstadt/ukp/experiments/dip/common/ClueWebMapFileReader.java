@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.lib.output.MapFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.partition.HashPartitioner;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Random access to {@code MapFile}s keyed by the TREC ID, one per reducer (hash-partitioned
+ * by the TREC ID); such as the documents extracted by {@code ClueWebTRECIdFileExtractor} with
+ * {@code -Dmapreduce.output.trec_ids.mapfile=true} (HTTP bodies) or the record locations
+ * indexed by {@code ClueWebTRECIdIndexer}. A lookup is a binary search in the index of a
+ * single MapFile followed by decompressing one block.
+ *
+ * @author Ivan Habernal
+ */
+public class ClueWebMapFileReader
+        implements Closeable
+{
+    private final MapFile.Reader[] readers;
+
+    private final HashPartitioner<Text, Writable> partitioner = new HashPartitioner<>();
+
+    private final Text key = new Text();
+    private final BytesWritable value = new BytesWritable();
+
+    /**
+     * Opens all MapFiles in the given output directory
+     *
+     * @param outputDir local output directory of the job
+     * @throws IOException if the directory contains no MapFiles
+     */
+    public ClueWebMapFileReader(File outputDir)
+            throws IOException
+    {
+        this(new Path(outputDir.getAbsolutePath()), new Configuration());
+    }
+
+    /**
+     * Opens all MapFiles in the given output directory in the order of the partitions. Unlike
+     * {@link MapFileOutputFormat#getReaders(Path, Configuration)} it skips everything but the
+     * {@code part-*} directories, such as the {@code _SUCCESS} marker or the found/missing ID
+     * lists.
+     *
+     * @param outputDir output directory of the job
+     * @param conf      configuration
+     * @throws IOException if the directory contains no MapFiles
+     */
+    public ClueWebMapFileReader(Path outputDir, Configuration conf)
+            throws IOException
+    {
+        FileSystem fs = outputDir.getFileSystem(conf);
+
+        FileStatus[] parts = fs.listStatus(outputDir, new PathFilter()
+        {
+            @Override
+            public boolean accept(Path path)
+            {
+                return path.getName().startsWith("part-");
+            }
+        });
+        if (parts.length == 0) {
+            throw new IOException("No MapFiles found in " + outputDir);
+        }
+
+        // the same order as the partitions
+        Arrays.sort(parts, new Comparator<FileStatus>()
+        {
+            @Override
+            public int compare(FileStatus o1, FileStatus o2)
+            {
+                return o1.getPath().getName().compareTo(o2.getPath().getName());
+            }
+        });
+
+        readers = new MapFile.Reader[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            readers[i] = new MapFile.Reader(parts[i].getPath(), conf);
+        }
+    }
+
+    /**
+     * Looks up the value of the document
+     *
+     * @param clueWebID TREC ID
+     * @param result    the value is read into it
+     * @return false if the document is not in the output
+     * @throws IOException exception
+     */
+    public synchronized boolean get(String clueWebID, Writable result)
+            throws IOException
+    {
+        key.set(clueWebID);
+
+        // the partition the same way as in the job
+        return MapFileOutputFormat.getEntry(readers, partitioner, key, result) != null;
+    }
+
+    /**
+     * Returns the HTTP body of the document
+     *
+     * @param clueWebID TREC ID
+     * @return HTTP body or null if the document is not in the output
+     * @throws IOException exception
+     */
+    public synchronized byte[] getHttpBody(String clueWebID)
+            throws IOException
+    {
+        if (!get(clueWebID, value)) {
+            return null;
+        }
+
+        return value.copyBytes();
+    }
+
+    /**
+     * Returns the MapFiles in the order of the partitions, for reading them sequentially
+     *
+     * @return readers
+     */
+    public MapFile.Reader[] getReaders()
+    {
+        return readers;
+    }
+
+    /**
+     * Returns the number of MapFiles (partitions)
+     *
+     * @return number of MapFiles
+     */
+    public int getPartitionCount()
+    {
+        return readers.length;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        for (MapFile.Reader reader : readers) {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common;
+
+import org.apache.hadoop.fs.Seekable;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads a (multi-member) gzip stream one member at a time and keeps track of the compressed
+ * offset at which each member starts. ClueWeb WARC files store every record in its own gzip
+ * member, so a member offset is a random-access entry point into the file. The CRC32 and the
+ * length of each member are checked against its trailer at the end of the member, as by the
+ * Hadoop gzip codec. A corrupt member can be skipped with {@link #skipToNextMember()}.
+ *
+ * @author Ivan Habernal
+ */
+public class GzipMemberReader
+        implements Closeable
+{
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+
+    private final InputStream in;
+    private final Inflater inflater = new Inflater(true);
+    // of the decompressed content of the current member
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[64 * 1024];
+    private final MemberInputStream memberStream = new MemberInputStream();
+
+    // absolute compressed offset of buffer[0]
+    private long bufferOffset;
+    private int bufferPosition;
+    private int bufferLimit;
+
+    private long memberOffset = -1;
+    private boolean memberFinished = true;
+
+    /**
+     * Creates a new reader
+     *
+     * @param in          compressed input, positioned at the beginning of a member
+     * @param startOffset absolute offset of the current position of {@code in}
+     */
+    public GzipMemberReader(InputStream in, long startOffset)
+    {
+        this.in = in;
+        this.bufferOffset = startOffset;
+    }
+
+    /**
+     * Skips the rest of the current member (if any) and reads the header of the next one
+     *
+     * @return false if the end of the stream has been reached
+     * @throws IOException if the stream is not in gzip format
+     */
+    public boolean nextMember()
+            throws IOException
+    {
+        if (!memberFinished) {
+            skipRemainingContent();
+        }
+
+        if (!ensureBuffer()) {
+            return false;
+        }
+
+        memberOffset = bufferOffset + bufferPosition;
+
+        if (readUnsignedByte() != 0x1f || readUnsignedByte() != 0x8b) {
+            throw new ZipException("Not in gzip format at offset " + memberOffset);
+        }
+        if (readUnsignedByte() != 8) {
+            throw new ZipException("Unsupported compression method at offset " + memberOffset);
+        }
+
+        int flags = readUnsignedByte();
+        // modification time, extra flags, OS
+        skipBytes(6);
+
+        if ((flags & FEXTRA) != 0) {
+            int length = readUnsignedByte() | (readUnsignedByte() << 8);
+            skipBytes(length);
+        }
+        if ((flags & FNAME) != 0) {
+            skipZeroTerminated();
+        }
+        if ((flags & FCOMMENT) != 0) {
+            skipZeroTerminated();
+        }
+        if ((flags & FHCRC) != 0) {
+            skipBytes(2);
+        }
+
+        inflater.reset();
+        crc.reset();
+        memberFinished = false;
+
+        return true;
+    }
+
+    /**
+     * Repositions the reader to a member boundary; requires a {@link Seekable} input
+     *
+     * @param offset absolute compressed offset of a member
+     * @throws IOException exception
+     */
+    public void seek(long offset)
+            throws IOException
+    {
+        if (!(in instanceof Seekable)) {
+            throw new IOException("Underlying stream is not seekable");
+        }
+
+        ((Seekable) in).seek(offset);
+        bufferOffset = offset;
+        bufferPosition = 0;
+        bufferLimit = 0;
+        memberOffset = -1;
+        memberFinished = true;
+    }
+
+    /**
+     * Skips a corrupt member: seeks to the next gzip member header (magic bytes and the
+     * deflate method) after the start of the current member; requires a {@link Seekable} input.
+     * The bytes found may also be part of the compressed data, so reading the member at the new
+     * position may fail again; calling this method again continues the search.
+     *
+     * @return false if there is no further member header
+     * @throws IOException exception
+     */
+    public boolean skipToNextMember()
+            throws IOException
+    {
+        if (memberOffset < 0) {
+            throw new IllegalStateException("No current member");
+        }
+        seek(memberOffset + 1);
+
+        int previous2 = -1;
+        int previous1 = -1;
+        while (ensureBuffer()) {
+            int current = buffer[bufferPosition++] & 0xff;
+            if (previous2 == 0x1f && previous1 == 0x8b && current == 8) {
+                seek(getPosition() - 3);
+                return true;
+            }
+            previous2 = previous1;
+            previous1 = current;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the compressed offset of the current member
+     *
+     * @return offset
+     */
+    public long getMemberOffset()
+    {
+        return memberOffset;
+    }
+
+    /**
+     * Returns the number of compressed bytes consumed so far (absolute position)
+     *
+     * @return position
+     */
+    public long getPosition()
+    {
+        return bufferOffset + bufferPosition;
+    }
+
+    /**
+     * Returns the decompressed content of the current member; the stream returns -1 at the
+     * end of the member. The same instance is returned for all members.
+     *
+     * @return stream
+     */
+    public InputStream getMemberStream()
+    {
+        return memberStream;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        inflater.end();
+        in.close();
+    }
+
+    private void skipRemainingContent()
+            throws IOException
+    {
+        byte[] skipBuffer = new byte[8 * 1024];
+        while (memberStream.read(skipBuffer, 0, skipBuffer.length) != -1) {
+            // discard
+        }
+    }
+
+    private boolean ensureBuffer()
+            throws IOException
+    {
+        if (bufferPosition < bufferLimit) {
+            return true;
+        }
+
+        bufferOffset += bufferLimit;
+        bufferPosition = 0;
+        bufferLimit = 0;
+
+        int read;
+        while ((read = in.read(buffer, 0, buffer.length)) == 0) {
+            // retry
+        }
+
+        if (read < 0) {
+            return false;
+        }
+
+        bufferLimit = read;
+        return true;
+    }
+
+    private int readUnsignedByte()
+            throws IOException
+    {
+        if (!ensureBuffer()) {
+            throw new EOFException("Unexpected end of gzip stream");
+        }
+        return buffer[bufferPosition++] & 0xff;
+    }
+
+    private void skipBytes(int count)
+            throws IOException
+    {
+        for (int i = 0; i < count; i++) {
+            readUnsignedByte();
+        }
+    }
+
+    private void skipZeroTerminated()
+            throws IOException
+    {
+        while (readUnsignedByte() != 0) {
+            // skip
+        }
+    }
+
+    /**
+     * Decompressed view of the current member
+     */
+    private class MemberInputStream
+            extends InputStream
+    {
+        private final byte[] single = new byte[1];
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+                throws IOException
+        {
+            if (memberFinished) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+
+            try {
+                while (true) {
+                    int inflated = inflater.inflate(b, off, len);
+                    if (inflated > 0) {
+                        crc.update(b, off, inflated);
+                        return inflated;
+                    }
+
+                    if (inflater.finished()) {
+                        // give back the bytes the inflater did not use and check the trailer
+                        bufferPosition = bufferLimit - inflater.getRemaining();
+                        memberFinished = true;
+                        checkTrailer();
+                        return -1;
+                    }
+
+                    if (inflater.needsDictionary()) {
+                        throw new ZipException("Preset dictionaries are not supported");
+                    }
+
+                    if (inflater.needsInput()) {
+                        if (!ensureBuffer()) {
+                            throw new EOFException("Unexpected end of gzip member at offset "
+                                    + memberOffset);
+                        }
+                        inflater.setInput(buffer, bufferPosition, bufferLimit - bufferPosition);
+                        bufferPosition = bufferLimit;
+                    }
+                }
+            }
+            catch (DataFormatException e) {
+                throw new ZipException(
+                        "Corrupt gzip member at offset " + memberOffset + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * Compares the CRC32 and the length (modulo 2^32) of the decompressed content with
+         * the trailer of the member
+         */
+        private void checkTrailer()
+                throws IOException
+        {
+            long expectedCrc = readUnsignedInt();
+            long expectedSize = readUnsignedInt();
+
+            if (expectedCrc != crc.getValue()) {
+                throw new ZipException("Corrupt gzip member at offset " + memberOffset
+                        + ": CRC32 mismatch");
+            }
+            if (expectedSize != (inflater.getBytesWritten() & 0xffffffffL)) {
+                throw new ZipException("Corrupt gzip member at offset " + memberOffset
+                        + ": length mismatch");
+            }
+        }
+
+        /**
+         * Little-endian as in the gzip format
+         */
+        private long readUnsignedInt()
+                throws IOException
+        {
+            return readUnsignedByte() | (readUnsignedByte() << 8) | (readUnsignedByte() << 16)
+                    | ((long) readUnsignedByte() << 24);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.tudarmstadt.ukp.experiments.dip.common;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the HTML body from the content of a WARC response record (HTTP header and body)
+ * working on the raw bytes; the header is parsed without decoding and only the body is decoded,
+ * using the charset from (in this order) the byte order mark, the {@code Content-Type} HTTP
+ * header, or the HTML {@code meta} tag; UTF-8 otherwise.
+ *
+ * @author Ivan Habernal
+ */
+public class HTTPResponseDecoder
+{
+    // only the beginning of the content is searched for the HTTP header
+    private static final int MAX_HTTP_HEADER_LENGTH = 64 * 1024;
+
+    // only the beginning of the body is searched for the meta tag
+    private static final int MAX_META_PRESCAN_LENGTH = 4096;
+
+    private static final byte[] HTTP = "HTTP/".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONTENT_LENGTH = "Content-Length:".getBytes(
+            StandardCharsets.US_ASCII);
+    private static final byte[] CONTENT_TYPE = "content-type:".getBytes(
+            StandardCharsets.US_ASCII);
+
+    private static final Pattern CHARSET = Pattern.compile(
+            "charset\\s*=\\s*[\"']?\\s*([-\\w.:]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern META_CHARSET = Pattern.compile(
+            "<meta[^>]+charset\\s*=\\s*[\"']?\\s*([-\\w.:]+)", Pattern.CASE_INSENSITIVE);
+
+    private static final Charset WINDOWS_1252 = lookup("windows-1252");
+
+    /**
+     * Returns the decoded HTML body without the byte order mark and, for ASCII-compatible
+     * encodings, without leading whitespace. If the HTTP header has no terminating empty line
+     * (see {@link #findHeaderEnd(byte[])}), the body starts at the first {@code <} after the
+     * line with {@code Content-Length}; without a tag it starts right after that line.
+     *
+     * @param content WARC record content (HTTP header and body)
+     * @return body
+     */
+    public static String decodeBody(byte[] content)
+    {
+        int headerEnd = findCompleteHeaderEnd(content);
+        boolean headerComplete = headerEnd >= 0;
+        if (!headerComplete) {
+            headerEnd = findContentLengthLineEnd(content);
+        }
+        Charset charset = detectCharset(content, headerEnd);
+
+        int bodyOffset = headerEnd;
+        if (charset.name().startsWith("UTF-16") || charset.name().startsWith("UTF-32")) {
+            if (bomLength(content, headerEnd) == 2) {
+                bodyOffset += 2;
+            }
+        }
+        else {
+            if (bomLength(content, headerEnd) == 3) {
+                bodyOffset += 3;
+            }
+            if (headerComplete) {
+                while (bodyOffset < content.length && isWhitespace(content[bodyOffset])) {
+                    bodyOffset++;
+                }
+            }
+            else {
+                int tag = indexOf(content, (byte) '<', bodyOffset);
+                if (tag >= 0) {
+                    bodyOffset = tag;
+                }
+            }
+        }
+
+        return new String(content, bodyOffset, content.length - bodyOffset, charset);
+    }
+
+    /**
+     * Returns the offset after the HTTP header (after the empty line). If the content does not
+     * start with a complete HTTP header, falls back to the end of the line with
+     * {@code Content-Length} (or of the first line if there is none)
+     *
+     * @param content WARC record content
+     * @return offset
+     */
+    public static int findHeaderEnd(byte[] content)
+    {
+        int headerEnd = findCompleteHeaderEnd(content);
+        return headerEnd >= 0 ? headerEnd : findContentLengthLineEnd(content);
+    }
+
+    /**
+     * Returns the offset after the empty line ending the HTTP header, or -1 if the content
+     * does not start with a complete HTTP header
+     */
+    private static int findCompleteHeaderEnd(byte[] content)
+    {
+        if (startsWith(content, 0, content.length, HTTP, false)) {
+            int limit = Math.min(content.length, MAX_HTTP_HEADER_LENGTH);
+
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = indexOf(content, (byte) '\n', lineStart, limit);
+                if (lineEnd < 0) {
+                    break;
+                }
+
+                int length = lineEnd - lineStart;
+                if (length > 0 && content[lineEnd - 1] == '\r') {
+                    length--;
+                }
+
+                if (length == 0 && lineStart > 0) {
+                    return lineEnd + 1;
+                }
+
+                lineStart = lineEnd + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the offset of the line after {@code Content-Length} (or after the first line)
+     */
+    private static int findContentLengthLineEnd(byte[] content)
+    {
+        int i = indexOf(content, CONTENT_LENGTH);
+        int j = indexOf(content, (byte) '\n', Math.max(i, 0));
+        return j + 1;
+    }
+
+    /**
+     * Detects the charset of the body
+     *
+     * @param content    WARC record content
+     * @param bodyOffset offset of the body
+     * @return charset, UTF-8 by default
+     */
+    public static Charset detectCharset(byte[] content, int bodyOffset)
+    {
+        // byte order mark
+        int length = content.length - bodyOffset;
+        if (bomLength(content, bodyOffset) == 3) {
+            return StandardCharsets.UTF_8;
+        }
+        if (bomLength(content, bodyOffset) == 2) {
+            return (content[bodyOffset] & 0xFF) == 0xFE ?
+                    StandardCharsets.UTF_16BE :
+                    StandardCharsets.UTF_16LE;
+        }
+
+        // HTTP header
+        Charset charset = charsetFromHeader(content, bodyOffset);
+        if (charset != null) {
+            return charset;
+        }
+
+        // meta tag at the beginning of the body
+        String prefix = new String(content, bodyOffset,
+                Math.min(length, MAX_META_PRESCAN_LENGTH), StandardCharsets.ISO_8859_1);
+        Matcher matcher = META_CHARSET.matcher(prefix);
+        if (matcher.find()) {
+            charset = lookup(matcher.group(1));
+            if (charset != null) {
+                return charset;
+            }
+        }
+
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Returns the length of the UTF-8 (3) or UTF-16 (2) byte order mark, 0 if there is none
+     */
+    private static int bomLength(byte[] content, int offset)
+    {
+        int length = content.length - offset;
+        if (length >= 3 && (content[offset] & 0xFF) == 0xEF
+                && (content[offset + 1] & 0xFF) == 0xBB && (content[offset + 2] & 0xFF) == 0xBF) {
+            return 3;
+        }
+        if (length >= 2 && (((content[offset] & 0xFF) == 0xFE
+                && (content[offset + 1] & 0xFF) == 0xFF) || ((content[offset] & 0xFF) == 0xFF
+                && (content[offset + 1] & 0xFF) == 0xFE))) {
+            return 2;
+        }
+        return 0;
+    }
+
+    private static boolean isWhitespace(byte b)
+    {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '\f';
+    }
+
+    private static Charset charsetFromHeader(byte[] content, int headerEnd)
+    {
+        int lineStart = 0;
+        while (lineStart < headerEnd) {
+            int lineEnd = indexOf(content, (byte) '\n', lineStart, headerEnd);
+            if (lineEnd < 0) {
+                lineEnd = headerEnd;
+            }
+
+            if (startsWith(content, lineStart, lineEnd, CONTENT_TYPE, true)) {
+                Matcher matcher = CHARSET.matcher(new String(content, lineStart,
+                        lineEnd - lineStart, StandardCharsets.ISO_8859_1));
+                return matcher.find() ? lookup(matcher.group(1)) : null;
+            }
+
+            lineStart = lineEnd + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the charset or null if it is unknown; Latin-1 and ASCII labels are treated as
+     * windows-1252, as browsers do
+     */
+    private static Charset lookup(String name)
+    {
+        String label = name.trim().toLowerCase(Locale.ROOT);
+        if (WINDOWS_1252 != null && (label.equals("iso-8859-1") || label.equals("latin1")
+                || label.equals("us-ascii") || label.equals("ascii"))) {
+            return WINDOWS_1252;
+        }
+
+        try {
+            return Charset.forName(label);
+        }
+        catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, int from, int to, byte[] prefix,
+            boolean ignoreCase)
+    {
+        if (to - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            byte b = bytes[from + i];
+            if (ignoreCase && b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from)
+    {
+        return indexOf(bytes, b, from, bytes.length);
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from, int to)
+    {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] needle)
+    {
+        for (int i = 0; i + needle.length <= bytes.length; i++) {
+            if (startsWith(bytes, i, bytes.length, needle, false)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common;
+
+import de.tudarmstadt.ukp.dkpro.core.stanfordnlp.StanfordSegmenter;
+import de.tudarmstadt.ukp.experiments.dip.wp1.documents.WebParagraph;
+import org.apache.commons.lang.StringUtils;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.xml.sax.SAXException;
+import sun.misc.BASE64Encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Paragraph, sentence and token annotation of the minimal html produced by the boilerplate
+ * removal; the result is a base64-encoded XMI-serialized JCas. The analysis engines and the JCas
+ * are created only once and reused for all documents, so a single instance is not thread-safe.
+ *
+ * @author Ivan Habernal
+ */
+public class LinguisticPreprocessor
+{
+    public static final Pattern OPENING_TAG_PATTERN = Pattern.compile("^<(\\S+)>");
+
+    private final AnalysisEngine paragraphAnnotator;
+    private final AnalysisEngine segmenter;
+    private final JCas jCas;
+
+    public LinguisticPreprocessor()
+            throws UIMAException
+    {
+        paragraphAnnotator = AnalysisEngineFactory.createEngine(WebParagraphAnnotator.class);
+        segmenter = AnalysisEngineFactory.createEngine(StanfordSegmenter.class,
+                // only on existing WebParagraph annotations
+                StanfordSegmenter.PARAM_ZONE_TYPES, WebParagraph.class.getCanonicalName());
+        jCas = JCasFactory.createJCas();
+    }
+
+    /**
+     * Annotates the minimal html (one html block per line, such as {@code <p>text</p>})
+     *
+     * @param minimalHtml output of the boilerplate removal
+     * @return base64-encoded XMI or null if the document is empty
+     * @throws IllegalArgumentException if a line does not start with a html tag
+     * @throws UIMAException            exception
+     * @throws SAXException             exception
+     */
+    public String process(String minimalHtml)
+            throws UIMAException, SAXException
+    {
+        String[] lines = StringUtils.split(minimalHtml, "\n");
+
+        // collecting all cleaned lines
+        List<String> cleanLines = new ArrayList<>(lines.length);
+        // collecting line tags
+        List<String> lineTags = new ArrayList<>(lines.length);
+
+        for (String line : lines) {
+            // get the tag
+            String tag = null;
+            Matcher m = OPENING_TAG_PATTERN.matcher(line);
+
+            if (m.find()) {
+                tag = m.group(1);
+            }
+
+            if (tag == null) {
+                throw new IllegalArgumentException("No html tag found for line:\n" + line);
+            }
+
+            // replace the tag at the beginning and the end
+            String noTagText = line.replaceAll("^<\\S+>", "").replaceAll("</\\S+>$", "");
+
+            // do some html cleaning
+            noTagText = noTagText.replaceAll("&nbsp;", " ");
+
+            noTagText = noTagText.trim();
+
+            // add to the output
+            if (!noTagText.isEmpty()) {
+                cleanLines.add(noTagText);
+                lineTags.add(tag);
+            }
+        }
+
+        if (cleanLines.isEmpty()) {
+            // the document is empty
+            return null;
+        }
+
+        // now join them back to paragraphs
+        String text = StringUtils.join(cleanLines, "\n");
+
+        jCas.reset();
+        jCas.setDocumentText(text);
+        jCas.setDocumentLanguage("en");
+
+        // annotate WebParagraph
+        paragraphAnnotator.process(jCas);
+
+        // fill the original tag information
+        List<WebParagraph> webParagraphs = new ArrayList<>(
+                JCasUtil.select(jCas, WebParagraph.class));
+
+        // they must be the same size as original ones
+        if (webParagraphs.size() != lineTags.size()) {
+            throw new IllegalStateException(
+                    "Different size of annotated paragraphs and original lines");
+        }
+
+        for (int i = 0; i < webParagraphs.size(); i++) {
+            webParagraphs.get(i).setOriginalHtmlTag(lineTags.get(i));
+        }
+
+        segmenter.process(jCas);
+
+        // now convert to XMI
+        ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
+        XmiCasSerializer.serialize(jCas.getCas(), byteOutputStream);
+
+        // encode to base64
+        return new BASE64Encoder().encode(byteOutputStream.toByteArray());
+    }
+}
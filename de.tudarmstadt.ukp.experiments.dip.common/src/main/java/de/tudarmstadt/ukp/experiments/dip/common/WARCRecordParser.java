@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common;
+
+import com.martinkl.warc.WARCRecord;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Parses the WARC records of a single gzip member read by {@link GzipMemberReader}
+ *
+ * @author Ivan Habernal
+ */
+public class WARCRecordParser
+{
+    private WARCRecordParser()
+    {
+        // static methods only
+    }
+
+    /**
+     * Reads the next record of the current gzip member. After the last record of the member
+     * the end of the member is read as well, so the member is verified (see
+     * {@link GzipMemberReader}) before its last record is returned.
+     *
+     * @param memberInput decompressed content of the member (see
+     *                    {@link GzipMemberReader#getMemberStream()}), must support mark/reset
+     * @return record or null at the end of the member
+     * @throws EOFException          if the member ends inside a record
+     * @throws IOException           if the member is corrupt
+     * @throws IllegalStateException if the record is malformed
+     */
+    public static WARCRecord readRecord(DataInputStream memberInput)
+            throws IOException
+    {
+        if (atEnd(memberInput)) {
+            return null;
+        }
+
+        WARCRecord result = new WARCRecord(memberInput);
+
+        // reaches the trailer if this is the last record of the member
+        atEnd(memberInput);
+
+        return result;
+    }
+
+    private static boolean atEnd(DataInputStream memberInput)
+            throws IOException
+    {
+        memberInput.mark(1);
+        if (memberInput.read() == -1) {
+            return true;
+        }
+        memberInput.reset();
+
+        return false;
+    }
+}
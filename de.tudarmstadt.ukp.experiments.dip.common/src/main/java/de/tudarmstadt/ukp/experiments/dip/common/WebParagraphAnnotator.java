@@ -16,7 +16,7 @@
  * limitations under the License.
  */
 
-package de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers;
+package de.tudarmstadt.ukp.experiments.dip.common;
 
 import de.tudarmstadt.ukp.experiments.dip.wp1.documents.WebParagraph;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
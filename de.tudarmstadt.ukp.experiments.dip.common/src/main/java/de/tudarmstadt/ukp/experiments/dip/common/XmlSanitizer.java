@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.tudarmstadt.ukp.experiments.dip.common;
+
+/**
+ * Removes characters that are not allowed in XML 1.0 ({@code #x9 | #xA | #xD | [#x20-#xD7FF] |
+ * [#xE000-#xFFFD] | [#x10000-#x10FFFF]}), including unpaired surrogates. The text is scanned
+ * once; a new string is built only if it actually contains an invalid character.
+ *
+ * @author Ivan Habernal
+ */
+public class XmlSanitizer
+{
+    private XmlSanitizer()
+    {
+        // static methods only
+    }
+
+    /**
+     * Returns true if the code point is allowed in XML 1.0
+     *
+     * @param codePoint code point
+     * @return boolean
+     */
+    public static boolean isValid(int codePoint)
+    {
+        return (codePoint >= 0x20 && codePoint <= 0xD7FF) || codePoint == 0x9 || codePoint == 0xA
+                || codePoint == 0xD || (codePoint >= 0xE000 && codePoint <= 0xFFFD) || (
+                codePoint >= 0x10000 && codePoint <= 0x10FFFF);
+    }
+
+    /**
+     * Returns the index of the first invalid character (or unpaired surrogate)
+     *
+     * @param text text
+     * @return index or -1 if the whole text is valid
+     */
+    public static int indexOfInvalid(CharSequence text)
+    {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if ((c >= 0x20 && c < Character.MIN_SURROGATE) || c == 0x9 || c == 0xA || c == 0xD
+                    || (c >= 0xE000 && c <= 0xFFFD)) {
+                i++;
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character
+                    .isLowSurrogate(text.charAt(i + 1))) {
+                i += 2;
+            }
+            else {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the invalid characters
+     *
+     * @param text text, may be null
+     * @return the same instance if there is nothing to remove, otherwise a sanitized copy
+     */
+    public static String sanitize(String text)
+    {
+        if (text == null) {
+            return null;
+        }
+
+        int first = indexOfInvalid(text);
+        if (first < 0) {
+            return text;
+        }
+
+        int length = text.length();
+        StringBuilder sb = new StringBuilder(length - 1);
+        sb.append(text, 0, first);
+        int i = first;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            int charCount = Character.charCount(codePoint);
+            if (isValid(codePoint)) {
+                sb.append(text, i, i + charCount);
+            }
+            i += charCount;
+        }
+
+        return sb.toString();
+    }
+}
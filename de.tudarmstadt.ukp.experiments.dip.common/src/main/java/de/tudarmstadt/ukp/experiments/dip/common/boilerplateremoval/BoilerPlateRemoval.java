@@ -16,7 +16,7 @@
  * limitations under the License.
  */
 
-package de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers.boilerplateremoval;
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval;
 
 import java.io.IOException;
 import java.util.Locale;
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
+
+import org.jsoup.nodes.Comment;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Cleans a DOM tree in a single traversal ({@code node.traverse(cleaner)}):
+ * <ul>
+ * <li>unwanted subtrees (elements with the given tag names or classes) and comments are removed
+ * top-down, before the traversal descends into them</li>
+ * <li>empty elements (see {@link NodeHelper#isEmptyElement(Node)}) and redundant wrappers (a
+ * single child with the same tag name and no attributes) are removed bottom-up, after the
+ * subtree below has been cleaned, so no repeated traversals are needed</li>
+ * </ul>
+ * Comments right below the root are kept, as in the original {@code cleanDom}.
+ *
+ * @author Ivan Habernal
+ */
+public class DomCleaner
+        implements NodeVisitor
+{
+    private final Set<String> unwantedTags;
+    private final Set<String> unwantedClasses;
+    private final boolean removeComments;
+    private final boolean removeEmptyElements;
+    private final boolean unwrapRedundantTags;
+
+    /**
+     * @param unwantedTags        (lower-case) names of the elements to be removed with their
+     *                            subtree
+     * @param unwantedClasses     classes of the elements to be removed with their subtree
+     * @param removeComments      remove comments
+     * @param removeEmptyElements remove empty elements and blank text nodes
+     * @param unwrapRedundantTags unwrap nested elements with the same tag name
+     */
+    public DomCleaner(Collection<String> unwantedTags, Collection<String> unwantedClasses,
+            boolean removeComments, boolean removeEmptyElements, boolean unwrapRedundantTags)
+    {
+        this.unwantedTags = new HashSet<>(unwantedTags);
+        this.unwantedClasses = new HashSet<>(unwantedClasses);
+        this.removeComments = removeComments;
+        this.removeEmptyElements = removeEmptyElements;
+        this.unwrapRedundantTags = unwrapRedundantTags;
+    }
+
+    @Override
+    public void head(Node node, int depth)
+    {
+        boolean removeChildComments = removeComments && node.parent() != null;
+
+        for (int i = 0; i < node.childNodeSize(); ) {
+            Node child = node.childNode(i);
+            if ((removeChildComments && child instanceof Comment) || isUnwanted(child)) {
+                child.remove();
+            }
+            else {
+                i++;
+            }
+        }
+    }
+
+    @Override
+    public void tail(Node node, int depth)
+    {
+        // the children are already cleaned
+        if (removeEmptyElements) {
+            for (int i = 0; i < node.childNodeSize(); ) {
+                Node child = node.childNode(i);
+                if (NodeHelper.isEmptyElement(child)) {
+                    child.remove();
+                }
+                else {
+                    i++;
+                }
+            }
+        }
+
+        if (unwrapRedundantTags) {
+            while (node.childNodeSize() == 1) {
+                Node child = node.childNode(0);
+                if (child.childNodeSize() == 1 && child.nodeName()
+                        .equalsIgnoreCase(node.nodeName()) && child.attributes().size() == 0) {
+                    child.unwrap();
+                }
+                else {
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean isUnwanted(Node node)
+    {
+        if (!(node instanceof Element)) {
+            return false;
+        }
+
+        Element element = (Element) node;
+        if (unwantedTags.contains(element.tagName())) {
+            return true;
+        }
+        for (String unwantedClass : unwantedClasses) {
+            if (element.hasClass(unwantedClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
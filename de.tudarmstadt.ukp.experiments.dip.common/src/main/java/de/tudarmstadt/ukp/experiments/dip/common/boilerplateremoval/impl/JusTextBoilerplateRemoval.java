@@ -0,0 +1,525 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
+
+import de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.BoilerPlateRemoval;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.*;
+
+/**
+ * Re-implementing the jusText python boilerplate removal algorithm (Pomikalek,
+ * 2011)
+ * <p/>
+ * The instance keeps no per-document state and can be shared by several threads.
+ *
+ * @author Omnia Zayed
+ */
+public class JusTextBoilerplateRemoval
+        implements BoilerPlateRemoval
+{
+
+    static final double MAX_LINK_DENSITY_DEFAULT = 0.20;
+    static final double LENGTH_LOW_DEFAULT = 70;
+    static final double LENGTH_HIGH_DEFAULT = 200;
+    static final double STOPWORDS_LOW_DEFAULT = 0.30;
+    static final double STOPWORDS_HIGH_DEFAULT = 0.32;
+    static final boolean NO_HEADINGS_DEFAULT = false;
+    // Short and near-good headings within MAX_HEADING_DISTANCE characters before
+    // a good paragraph are classified as good unless --no-headings is specified.
+    static final int MAX_HEADING_DISTANCE_DEFAULT = 200;
+
+    // removed by cleanDom
+    static final List<String> UNWANTED_TAGS = Arrays.asList("head", "script", "embedded");
+    static final List<String> UNWANTED_CLASSES = Collections.singletonList("hidden");
+
+    // language-independent mode
+    static final StopwordSet NO_STOPWORDS = new StopwordSet(Collections.<String>emptySet());
+
+    /**
+     * covert html to a jsoup document
+     *
+     * @param html
+     * @return
+     */
+    public Document convertHtmlToDoc(String html) {
+        return Jsoup.parse(html);
+    }
+
+    /**
+     * remove unwanted parts (head, script, .hidden, embedded) and comments from a
+     * jsoup doc in a single traversal
+     *
+     * @param jsoupDoc
+     * @return
+     */
+    public Document cleanDom(Document jsoupDoc) {
+        jsoupDoc.traverse(new DomCleaner(UNWANTED_TAGS, UNWANTED_CLASSES, true, false, false));
+        return jsoupDoc;
+    }
+
+    /**
+     * Parse and clean the html and convert it to a list of blocks (paragraphs)
+     * using the Paragraph explorer class. The paragraphs do not reference the
+     * jsoup document, so it can be garbage collected before the classification.
+     *
+     * @param htmlText
+     * @param stopwords
+     * @return
+     */
+    private List<Paragraph> makeParagraphs(String htmlText, StopwordSet stopwords) {
+        Document cleanJSoupDoc = cleanDom(convertHtmlToDoc(htmlText));
+        ParagraphsExplorer pe = new ParagraphsExplorer(stopwords);
+        cleanJSoupDoc.traverse(pe); //begin the traversal of the doc
+        return pe.getParagraphs();
+    }
+
+    /**
+     * Context-free paragraph classification. assigns each block (paragraph) to
+     * one of four classes: bad – boilerplate blocks good – main content blocks
+     * short – too short to make a reliable decision about the class near-good –
+     * somewhere in-between short and good
+     *
+     * @param paragraphs
+     * @param stoplist
+     * @param lengthLow
+     * @param lengthHigh
+     * @param stopwordsLow
+     * @param stopwordsHigh
+     * @param maxLinkDensity
+     * @param noHeadings
+     */
+    public void classifyContextFree(List<Paragraph> paragraphs, Set<String> stoplist,
+            double lengthLow, double lengthHigh, double stopwordsLow,
+            double stopwordsHigh, double maxLinkDensity, boolean noHeadings) {
+        classifyContextFree(paragraphs, new StopwordSet(stoplist), lengthLow, lengthHigh,
+                stopwordsLow, stopwordsHigh, maxLinkDensity, noHeadings);
+    }
+
+    /**
+     * Context-free paragraph classification with a prepared (lower-cased) stoplist
+     *
+     * @see #classifyContextFree(List, Set, double, double, double, double, double, boolean)
+     */
+    public void classifyContextFree(List<Paragraph> paragraphs, StopwordSet stoplist,
+            double lengthLow, double lengthHigh, double stopwordsLow,
+            double stopwordsHigh, double maxLinkDensity, boolean noHeadings) {
+
+        for (Paragraph paragraph : paragraphs) {
+            int length = paragraph.getRawText().length();
+            float stopword_density = paragraph.stopwords_density(stoplist);
+            double link_density = paragraph.calcLinksDensity();
+
+            if (link_density > maxLinkDensity) {
+                paragraph.setContextFreeClass(ParagraphClass.BAD);
+            } else if (paragraph.getRawText().contains("\\xa9") || paragraph.getRawText()
+                    .contains("&copy")) {
+                paragraph.setContextFreeClass(ParagraphClass.BAD);
+            } else if (length < lengthLow) {
+                if (paragraph.getLinksLength() > 0) {
+                    paragraph.setContextFreeClass(ParagraphClass.BAD);
+                } else {
+                    paragraph.setContextFreeClass(ParagraphClass.SHORT);
+                }
+            } else if (stopword_density >= stopwordsHigh) {
+                if (length > lengthHigh) {
+                    paragraph.setContextFreeClass(ParagraphClass.GOOD);
+                } else {
+                    paragraph.setContextFreeClass(ParagraphClass.NEARGOOD);
+                }
+            } else if (stopword_density >= stopwordsLow) {
+                paragraph.setContextFreeClass(ParagraphClass.NEARGOOD);
+            } else {
+                paragraph.setContextFreeClass(ParagraphClass.BAD);
+            }
+        }
+    }
+
+    /**
+     * Context-sensitive paragraph classification. Assumes that context free
+     * classification of paragraphs has already been called. The purpose is to
+     * re classify neargood and short paragraphs according to the classes of the
+     * surrounding blocks.
+     * <p/>
+     * The nearest neighbours of each paragraph (the nearest good/bad paragraph
+     * before/after it, skipping short and neargood ones) and the nearest following
+     * good paragraph are precomputed in a single sweep for each pass, so the whole
+     * classification is linear in the number of paragraphs.
+     *
+     * @param paragraphs
+     * @param maxHeadingDistance
+     */
+    public void reclassifyContextSensitive(List<Paragraph> paragraphs, int maxHeadingDistance) {
+
+        int n = paragraphs.size();
+        // random access for any list
+        Paragraph[] paragraphArray = paragraphs.toArray(new Paragraph[n]);
+
+        // copy classes; offsets[i] = length of the text of the paragraphs before i
+        ParagraphClass[] classes = new ParagraphClass[n];
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            classes[i] = paragraphArray[i].getContextFreeClass();
+            offsets[i + 1] = offsets[i] + paragraphArray[i].getRawText().length();
+        }
+
+        // re-classify good headings
+        int[] nextGood = nextGood(classes);
+        for (int i = 0; i < n; i++) {
+            if (classes[i] == ParagraphClass.SHORT && paragraphArray[i].isHeading()
+                    && isGoodWithinDistance(i, nextGood, offsets, maxHeadingDistance)) {
+                classes[i] = ParagraphClass.NEARGOOD;
+            }
+        }
+
+        //re-classify short
+        //the new classes are stored separately as we dont want to mess the
+        //original classification for the following short paragraphs.
+        ParagraphClass[] nextGoodOrBad = nextNeighbours(classes, true);
+        ParagraphClass[] nextNeighbour = nextNeighbours(classes, false);
+        ParagraphClass[] newClasses = classes.clone();
+
+        ParagraphClass prevGoodOrBad = ParagraphClass.BAD;
+        ParagraphClass prevNeighbour = ParagraphClass.BAD;
+        for (int i = 0; i < n; i++) {
+            if (classes[i] == ParagraphClass.SHORT) {
+                if (prevGoodOrBad == nextGoodOrBad[i]) {
+                    // both good or both bad
+                    newClasses[i] = prevGoodOrBad;
+                } // it must be set(['good', 'bad'])
+                else if ((prevGoodOrBad == ParagraphClass.BAD
+                        && prevNeighbour == ParagraphClass.NEARGOOD)
+                        || (nextGoodOrBad[i] == ParagraphClass.BAD
+                        && nextNeighbour[i] == ParagraphClass.NEARGOOD)) {
+                    newClasses[i] = ParagraphClass.GOOD;
+                } else {
+                    newClasses[i] = ParagraphClass.BAD;
+                }
+            } else {
+                prevNeighbour = classes[i];
+                if (classes[i] != ParagraphClass.NEARGOOD) {
+                    prevGoodOrBad = classes[i];
+                }
+            }
+        }
+        classes = newClasses;
+
+        // revise neargood; the revised paragraphs are already neighbours of the
+        // following ones
+        nextGoodOrBad = nextNeighbours(classes, true);
+        prevGoodOrBad = ParagraphClass.BAD;
+        for (int i = 0; i < n; i++) {
+            if (classes[i] == ParagraphClass.NEARGOOD) {
+                if (prevGoodOrBad == ParagraphClass.BAD
+                        && nextGoodOrBad[i] == ParagraphClass.BAD) {
+                    classes[i] = ParagraphClass.BAD;
+                } else {
+                    classes[i] = ParagraphClass.GOOD;
+                }
+            }
+            if (classes[i] == ParagraphClass.GOOD || classes[i] == ParagraphClass.BAD) {
+                prevGoodOrBad = classes[i];
+            }
+        }
+
+        // re-classify more good headings
+        nextGood = nextGood(classes);
+        for (int i = 0; i < n; i++) {
+            if (classes[i] == ParagraphClass.BAD
+                    && paragraphArray[i].getContextFreeClass() != ParagraphClass.BAD
+                    && paragraphArray[i].isHeading()
+                    && isGoodWithinDistance(i, nextGood, offsets, maxHeadingDistance)) {
+                classes[i] = ParagraphClass.GOOD;
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            paragraphArray[i].setClassType(classes[i]);
+        }
+    }
+
+    /**
+     * For each paragraph, the index of the nearest following good paragraph (-1 if
+     * there is none)
+     *
+     * @param classes
+     * @return
+     */
+    private static int[] nextGood(ParagraphClass[] classes) {
+        int[] result = new int[classes.length];
+        int next = -1;
+        for (int i = classes.length - 1; i >= 0; i--) {
+            result[i] = next;
+            if (classes[i] == ParagraphClass.GOOD) {
+                next = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * For each paragraph, the class of the nearest following paragraph skipping
+     * short ones (and neargood ones if ignoreNeargood is true); bad if there is none
+     *
+     * @param classes
+     * @param ignoreNeargood
+     * @return
+     */
+    private static ParagraphClass[] nextNeighbours(ParagraphClass[] classes,
+            boolean ignoreNeargood) {
+        ParagraphClass[] result = new ParagraphClass[classes.length];
+        ParagraphClass next = ParagraphClass.BAD;
+        for (int i = classes.length - 1; i >= 0; i--) {
+            result[i] = next;
+            if (classes[i] == ParagraphClass.GOOD || classes[i] == ParagraphClass.BAD
+                    || (classes[i] == ParagraphClass.NEARGOOD && !ignoreNeargood)) {
+                next = classes[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether a good paragraph follows the paragraph i within maxHeadingDistance
+     * characters
+     *
+     * @param i
+     * @param nextGood
+     * @param offsets
+     * @param maxHeadingDistance
+     * @return
+     */
+    private static boolean isGoodWithinDistance(int i, int[] nextGood, int[] offsets,
+            int maxHeadingDistance) {
+        int j = nextGood[i];
+        return j >= 0 && offsets[j] - offsets[i + 1] <= maxHeadingDistance;
+    }
+
+    /**
+     * Converts an HTML page into a list of classified paragraphs. Each
+     * paragraph is represented as instance of class "Paragraph"
+     *
+     * @param htmlText
+     * @param stopwordsSet
+     * @param lengthLow
+     * @param lengthHigh
+     * @param stopwordsLow
+     * @param stopwordsHigh
+     * @param maxLinkDensity
+     * @param maxHeadingDistance
+     * @param noHeadings
+     * @return
+     */
+    public List<Paragraph> classify(String htmlText, Set<String> stopwordsSet, double lengthLow,
+            double lengthHigh, double stopwordsLow,
+            double stopwordsHigh, double maxLinkDensity,
+            int maxHeadingDistance, boolean noHeadings) {
+        return classify(htmlText, new StopwordSet(stopwordsSet), lengthLow, lengthHigh,
+                stopwordsLow, stopwordsHigh, maxLinkDensity, maxHeadingDistance, noHeadings);
+    }
+
+    /**
+     * Converts an HTML page into a list of classified paragraphs using a prepared
+     * (lower-cased) stoplist
+     *
+     * @see #classify(String, Set, double, double, double, double, double, int, boolean)
+     */
+    public List<Paragraph> classify(String htmlText, StopwordSet stopwordsSet, double lengthLow,
+            double lengthHigh, double stopwordsLow,
+            double stopwordsHigh, double maxLinkDensity,
+            int maxHeadingDistance, boolean noHeadings) {
+
+        //preprocessing
+        List<Paragraph> paragraphs = makeParagraphs(htmlText, stopwordsSet);
+        classifyParagraphs(paragraphs, stopwordsSet, lengthLow, lengthHigh, stopwordsLow,
+                stopwordsHigh, maxLinkDensity, maxHeadingDistance, noHeadings);
+
+        return paragraphs;
+    }
+
+    /**
+     * Context-free and context-sensitive classification of the paragraphs
+     */
+    private void classifyParagraphs(List<Paragraph> paragraphs, StopwordSet stopwordsSet,
+            double lengthLow, double lengthHigh, double stopwordsLow,
+            double stopwordsHigh, double maxLinkDensity,
+            int maxHeadingDistance, boolean noHeadings) {
+
+        //language-independent mode
+        if (stopwordsSet.isEmpty()) {
+            //empty stoplist, switch to language-independent mode
+            stopwordsHigh = 0;
+            stopwordsLow = 0;
+        }
+
+        //context-free classification
+        classifyContextFree(paragraphs, stopwordsSet, lengthLow, lengthHigh,
+                stopwordsLow, stopwordsHigh, maxLinkDensity, noHeadings);
+        //context-sensitive classification.
+        reclassifyContextSensitive(paragraphs, maxHeadingDistance);
+    }
+
+    /**
+     * using defaults; if the locale is null, the language is identified by the
+     * stopwords in the text of the paragraphs and the language-independent mode
+     * is used if it is none of the languages of the preloaded stoplists
+     * (see {@link StoplistRegistry})
+     *
+     * @param htmlText
+     * @param locale
+     * @return
+     * @throws IOException
+     */
+    public List<Paragraph> classify(String htmlText, Locale locale)
+            throws IOException
+    {
+
+        StoplistRegistry registry = StoplistRegistry.getInstance();
+        List<Paragraph> paragraphs;
+        StopwordSet stopwordsSet;
+        if (locale == null) {
+            // the stopwords of the identified language are counted by the identifier
+            paragraphs = makeParagraphs(htmlText, null);
+            Locale language = registry.getLanguageIdentifier().identify(paragraphs);
+            stopwordsSet = language == null ? NO_STOPWORDS : registry.get(language);
+        } else {
+            stopwordsSet = registry.get(locale);
+            paragraphs = makeParagraphs(htmlText, stopwordsSet);
+        }
+
+        classifyParagraphs(paragraphs, stopwordsSet, JusTextBoilerplateRemoval.LENGTH_LOW_DEFAULT,
+                JusTextBoilerplateRemoval.LENGTH_HIGH_DEFAULT, JusTextBoilerplateRemoval.STOPWORDS_LOW_DEFAULT,
+                JusTextBoilerplateRemoval.STOPWORDS_HIGH_DEFAULT, JusTextBoilerplateRemoval.MAX_LINK_DENSITY_DEFAULT,
+                JusTextBoilerplateRemoval.MAX_HEADING_DISTANCE_DEFAULT, JusTextBoilerplateRemoval.NO_HEADINGS_DEFAULT);
+        return paragraphs;
+    }
+
+    /**
+     * adding some tags to the clean text Outputs the paragraphs as:
+     * <tag> text of the first paragraph
+     * <tag> text of the second paragraph ... where <tag> is
+     * <p>
+     * , <h> or <b> which indicates standard paragraph, heading or boilerplate
+     * respectively.
+     *
+     * @param paragraphs
+     * @return
+     */
+    public String recreateHTML(List<Paragraph> paragraphs) {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+
+        for (Paragraph p : paragraphs) {
+            if (!p.isBoilerplate()) {
+                // get the tag name
+                String tagNameOrig = p.getTagName();
+
+                // extract the tag name from i.e. "html.body.div.div.div.div.div.div.p."
+                String[] split = tagNameOrig.split("\\.");
+                String tag = split[split.length - 1];
+                //edited as sometimes  the tag is empty because it is div or br
+                if (tag.trim().isEmpty()) {
+                    tag = "p";
+                }
+                // extract raw text
+                String rawText = Utils.normalize(p.getRawText());
+
+                // for non-empty text and non-empty tags, print the output
+                if (!tag.trim().isEmpty() && !rawText.isEmpty()) {
+                    pw.printf("<%s>%s</%s>%n", tag, rawText, tag);
+                }
+            }
+        }
+
+        IOUtils.closeQuietly(pw);
+        return sw.toString();
+    }
+
+    @Override
+    public String getPlainText(String html, Locale locale)
+            throws IOException
+    {
+
+        List<Paragraph> paragraphs = classify(html, locale);
+
+        StringBuilder sb = new StringBuilder();
+        for (Paragraph p : paragraphs) {
+            if (!p.isBoilerplate()) {
+                // extract raw text
+                String rawText = Utils.normalize(p.getRawText());
+                rawText = StringEscapeUtils.unescapeHtml(rawText).trim();
+
+                sb.append(rawText);
+                sb.append("\n");
+            }
+        }
+
+        return sb.toString().trim();
+    }
+
+    /**
+     * TODO: decide whether to escape Html elements such as (&nbsp; &gt;) and
+     * convert them to ( & >) or not
+     *
+     * @param html
+     * @param locale
+     * @return
+     * @throws IOException
+     */
+    @Override
+    public String getMinimalHtml(String html, Locale locale)
+            throws IOException
+    {
+
+        List<Paragraph> paragraphs = classify(html, locale);
+
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+
+        for (Paragraph p : paragraphs) {
+            if (!p.isBoilerplate()) {
+                // get the tag name
+                String tagNameOrig = p.getTagName();
+
+                // extract the tag name from i.e. "html.body.div.div.div.div.div.div.p."
+                String[] split = tagNameOrig.split("\\.");
+                String tag = split[split.length - 1];
+                //edited as sometimes  the tag is empty because it is div or br
+                if (tag.trim().isEmpty()) {
+                    tag = "p";
+                }
+                // extract raw text
+                String rawText = Utils.normalize(p.getRawText());
+
+                // for non-empty text and non-empty tags, print the output
+                if (!tag.trim().isEmpty() && !rawText.isEmpty()) {
+                    pw.printf("<%s>%s</%s>%n", tag, rawText, tag);
+                }
+            }
+        }
+
+        IOUtils.closeQuietly(pw);
+        return sw.toString();
+    }
+}
@@ -16,15 +16,15 @@
  * limitations under the License.
  */
 
-package de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers.boilerplateremoval.impl;
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
 
 import com.google.common.base.Function;
 import com.google.common.base.Strings;
 import org.jsoup.helper.StringUtil;
 import org.jsoup.nodes.*;
 import org.jsoup.parser.Tag;
-import org.jsoup.select.NodeVisitor;
 
+import java.util.Collections;
 import java.util.HashMap;
 
 /**
@@ -157,6 +157,33 @@ public class NodeHelper {
         return null;
     }
 
+    /**
+     * return the path of tag names from the html element to the parent of the
+     * node, e.g. "html.body.div.p."; a text node is skipped as well as one inner
+     * text tag (b, u, i, br) above it
+     */
+    public static String getPath(Node n) {
+        String nodePath = "";
+        while (n != null) {
+            if (n instanceof TextNode) {
+                n = n.parent();
+            }
+            if (isInnerText(n)) {
+                n = n.parent();
+            }
+            String parentNodeName = n.nodeName();
+            nodePath = parentNodeName + "." + nodePath;
+
+            if (!parentNodeName.equalsIgnoreCase("html")) {
+                n = n.parent();
+            } else {
+                break;
+            }
+        }
+
+        return nodePath;
+    }
+
     /**
      * return true if node has a link ancestor
      */
@@ -375,78 +402,22 @@ public class NodeHelper {
         return false;
     }
 
-    private static class TagUnwrapper implements NodeVisitor
-    {
-
-        private boolean modified = false;
-
-        @Override
-        public void head(Node node, int depth) {
-            if (node.childNodeSize() == 1) {
-                Node child = node.childNode(0);
-                if (child.childNodeSize() == 1 && child.nodeName().equalsIgnoreCase(node.nodeName())) {
-                    if (child.attributes().size() == 0) {
-                        child.unwrap();
-                        modified = true;
-                    }
-                }
-            }
-        }
-
-        @Override
-        public void tail(Node node, int depth) {
-
-        }
-
-        public boolean isModified() {
-            return modified;
-        }
-    }
-
-    private static class EmptyNodeCleaner implements NodeVisitor
-    {
-
-        private boolean modified = false;
-
-        @Override
-        public void head(Node node, int depth) {
-            for (int i = 0; i < node.childNodes().size();) {
-                Node child = node.childNode(i);
-
-                //remove empty elements
-                if (isEmptyElement(child)) {
-                    child.remove();
-                    modified = true;
-                } else {
-                    i++;
-                }
-            }
-        }
-
-        @Override
-        public void tail(Node node, int depth) {
-
-        }
-
-        public boolean isModified() {
-            return modified;
-        }
-    }
-
+    /**
+     * remove empty elements and blank text nodes (repeatedly, so elements that
+     * contain only empty elements are removed as well)
+     */
     public static void cleanEmptyElements(Node node) {
-        EmptyNodeCleaner enc;
-        do {
-            enc = new EmptyNodeCleaner();
-            node.traverse(enc);
-        } while (enc.isModified());
+        node.traverse(new DomCleaner(Collections.<String>emptyList(),
+                Collections.<String>emptyList(), false, true, false));
     }
 
+    /**
+     * unwrap elements that are the only child of an element with the same name
+     * (repeatedly, so nested chains are collapsed)
+     */
     public static void unwrapRedundancyTags(Node node) {
-        TagUnwrapper tu;
-        do {
-            tu = new TagUnwrapper();
-            node.traverse(tu);
-        } while (tu.isModified());
+        node.traverse(new DomCleaner(Collections.<String>emptyList(),
+                Collections.<String>emptyList(), false, false, true));
     }
 
     public static String detectLanguage(Document doc) {
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
+
+/**
+ * Data structure representing one block of text in HTML: the path of tags, the text and its
+ * statistics. It does not reference the jsoup nodes it was created from (see
+ * {@link ParagraphsExplorer}), so the document can be released before the classification.
+ *
+ * @author Omnia Zayed
+ */
+public class Paragraph
+{
+
+    private final String tagName;
+    private final String rawText;
+    private final int charsCountInLinks;
+    private final boolean heading;
+
+    // statistics of the text; the stopwords count is for scannedStopwords
+    private int wordsCount;
+    private int stopwordsCount;
+    private StopwordSet scannedStopwords;
+
+    private ParagraphClass classType;
+    private ParagraphClass contextFreeClass;
+
+    /**
+     * Creates the paragraph and counts its words (and stopwords)
+     *
+     * @param tagName           path of the tags, e.g. "html.body.div.p."
+     * @param rawText           normalized text
+     * @param charsCountInLinks number of the characters of the text inside links
+     * @param stopwords         stopwords (may be null)
+     */
+    public Paragraph(String tagName, String rawText, int charsCountInLinks,
+            StopwordSet stopwords)
+    {
+        this.tagName = tagName;
+        this.rawText = rawText;
+        this.charsCountInLinks = charsCountInLinks;
+        this.heading = isHeadingPath(tagName);
+        scan(stopwords);
+    }
+
+    public int getLinksLength()
+    {
+        return this.charsCountInLinks;
+    }
+
+    public ParagraphClass getClassType()
+    {
+        return this.classType;
+    }
+
+    public void setClassType(ParagraphClass classType)
+    {
+        this.classType = classType;
+    }
+
+    public ParagraphClass getContextFreeClass()
+    {
+        return this.contextFreeClass;
+    }
+
+    public void setContextFreeClass(ParagraphClass contextFreeClass)
+    {
+        this.contextFreeClass = contextFreeClass;
+    }
+
+    public String getTagName()
+    {
+        return this.tagName;
+    }
+
+    public boolean isHeading()
+    {
+        return this.heading;
+    }
+
+    /**
+     * Same as {@code tagName.matches(".*\\.h\\d\\.")}
+     */
+    private static boolean isHeadingPath(String tagName)
+    {
+        int length = tagName.length();
+        if (length < 4 || tagName.charAt(length - 1) != '.' || tagName.charAt(length - 2) < '0'
+                || tagName.charAt(length - 2) > '9' || tagName.charAt(length - 3) != 'h'
+                || tagName.charAt(length - 4) != '.') {
+            return false;
+        }
+        // '.' does not match line terminators
+        for (int i = 0; i < length - 4; i++) {
+            char c = tagName.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isBoilerplate()
+    {
+        return this.getClassType() != ParagraphClass.GOOD;
+    }
+
+    public String getRawText()
+    {
+        return this.rawText;
+    }
+
+    /**
+     * Number of words as in {@code getRawText().split("\\s+").length}
+     *
+     * @return words count
+     */
+    public int getWordsCount()
+    {
+        return wordsCount;
+    }
+
+    public int stopwordsCount(StopwordSet stopwords)
+    {
+        // no need to scan the text (as in the language-independent mode)
+        if (stopwords == null || stopwords.isEmpty()) {
+            return 0;
+        }
+        if (scannedStopwords != stopwords) {
+            scan(stopwords);
+        }
+        return stopwordsCount;
+    }
+
+    /**
+     * Sets the number of stopwords counted elsewhere (by
+     * {@link StopwordLanguageIdentifier#identify(java.util.List)}), so they are not counted again
+     *
+     * @param stopwords stopwords
+     * @param count     number of the stopwords in the text
+     */
+    void setStopwordsCount(StopwordSet stopwords, int count)
+    {
+        stopwordsCount = count;
+        scannedStopwords = stopwords;
+    }
+
+    public float stopwords_density(StopwordSet stopwords)
+    {
+        int stopwordsCount = this.stopwordsCount(stopwords);
+        if (wordsCount == 0) {
+            return 0;
+        }
+
+        return stopwordsCount / (float) wordsCount;
+    }
+
+    /**
+     * Counts the words and the stopwords of the text in a single pass without creating
+     * strings for the words. The words are the same as the ones of
+     * {@code getRawText().split("\\s+")}, including the empty string for an empty text or
+     * for a text starting with whitespace.
+     *
+     * @param stopwords stopwords (may be null)
+     */
+    private void scan(StopwordSet stopwords)
+    {
+        String text = getRawText();
+        int length = text.length();
+        int words = 0;
+        int stopwordsFound = 0;
+
+        int i = 0;
+        while (i < length) {
+            while (i < length && Utils.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int start = i;
+            while (i < length && !Utils.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            words++;
+            if (stopwords != null && stopwords.contains(text, start, i)) {
+                stopwordsFound++;
+            }
+        }
+
+        // the empty leading word; split() returns the whole (empty) text if there are no
+        // separators and drops all the empty words if there are no others
+        if (length == 0 || (words > 0 && Utils.isWhitespace(text.charAt(0)))) {
+            words++;
+            if (stopwords != null && stopwords.contains(text, 0, 0)) {
+                stopwordsFound++;
+            }
+        }
+
+        wordsCount = words;
+        stopwordsCount = stopwordsFound;
+        scannedStopwords = stopwords;
+    }
+
+    /**
+     * links density means the number of characters of the sentence defining the link
+     * divide by the length of the whole paragraph.
+     * e.g: hi <a ...>omnia</a> this is an example
+     * link density = 5 (length of omnia) / 26 (paragraph length)
+     *
+     * @return
+     */
+    public float calcLinksDensity()
+    {
+        int textLength = this.getRawText().length();
+        if (textLength == 0) {
+            return 0;
+        }
+
+        return this.getLinksLength() / (float) textLength;
+    }
+
+}
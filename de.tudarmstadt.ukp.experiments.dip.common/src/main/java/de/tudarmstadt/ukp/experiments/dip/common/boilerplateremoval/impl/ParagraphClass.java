@@ -16,28 +16,19 @@
  * limitations under the License.
  */
 
-package de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers.boilerplateremoval.impl;
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
 
 /**
- * Data structure representing a pair of integer and string
+ * Classes of paragraphs (blocks) of jusText: bad – boilerplate blocks, good – main content
+ * blocks, short – too short to make a reliable decision about the class, near-good – somewhere
+ * in-between short and good
  *
- * @author Omnia Zayed
+ * @author Ivan Habernal
  */
-public class Pair {
-
-    public final Integer id;
-    public final String classType;
-
-    public Pair(Integer id, String classType) {
-        this.id = id;
-        this.classType = classType;
-    }
-
-    public Integer getID() {
-        return this.id;
-    }
-
-    public String getClassType() {
-        return this.classType;
-    }
+public enum ParagraphClass
+{
+    BAD,
+    GOOD,
+    SHORT,
+    NEARGOOD
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
+
+import org.jsoup.helper.StringUtil;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Extract a list of paragraphs from html page. Paragraphs here means blocks of
+ * the document that might be a boilerplate or not. A paragraph is added when
+ * the next one starts (or the traversal ends) and keeps only its text, not the
+ * nodes.
+ *
+ * @author Omnia Zayed original code author is Phu-Hiep DUONG (found on-line but
+ *         edited some parts)
+ */
+public class ParagraphsExplorer
+        implements NodeVisitor
+{
+
+    private final List<Paragraph> paragraphs;
+
+    // stopwords counted in the paragraphs (may be null)
+    private final StopwordSet stopwords;
+
+    // the paragraph being built (null path = none)
+    private String path;
+    private String rawText;
+    private int charsCountInLinks;
+
+    // state of the traversal, indexed by depth of the ancestors of the current node:
+    // the number of block elements on the path from the root and the paths (of a
+    // child text node and if the element itself is reached, see
+    // NodeHelper#getPath(Node))
+    private int[] blockCounts = new int[32];
+    private String[] paths = new String[32];
+    private String[] reachedPaths = new String[32];
+    private String rootParentPath;
+
+    // number of open links (including the ones above the root)
+    private int openLinks;
+
+    // the last added node (depth -1 = none yet); since it was added, the smallest
+    // depth of a finished node (the finished ancestors of the last added node) and
+    // whether one of these ancestors is a block element
+    private int lastAddedDepth = -1;
+    private boolean lastAddedBr;
+    private int lowestFinishedDepth;
+    private boolean blockFinished;
+
+    public ParagraphsExplorer()
+    {
+        this(null);
+    }
+
+    /**
+     * @param stopwords stopwords counted in the paragraphs (may be null)
+     */
+    public ParagraphsExplorer(StopwordSet stopwords)
+    {
+        this.paragraphs = new ArrayList<Paragraph>();
+        this.stopwords = stopwords;
+    }
+
+    @Override
+    public void head(Node node, int depth)
+    {
+        if (depth == 0) {
+            rootParentPath = NodeHelper.getPath(node.parent());
+            openLinks = NodeHelper.isLink(node.parent()) ? 1 : 0;
+        }
+        if (NodeHelper.isLinkTag(node)) {
+            openLinks++;
+        }
+
+        if (node.childNodeSize() == 0) {
+            if (node instanceof TextNode && StringUtil.isBlank(node.outerHtml())) {
+                return;
+            }
+            mergeToResult(node, depth);
+
+            lastAddedDepth = depth;
+            lastAddedBr = node.nodeName().equalsIgnoreCase("br");
+            lowestFinishedDepth = depth;
+            blockFinished = false;
+        }
+        else {
+            pushAncestor(node, depth);
+        }
+    }
+
+    @Override
+    public void tail(Node node, int depth)
+    {
+        if (NodeHelper.isLinkTag(node)) {
+            openLinks--;
+        }
+
+        // the ancestors of the last added node are finished from the deepest one, any other
+        // finished node is below an ancestor finished before
+        if (lastAddedDepth >= 0 && depth < lowestFinishedDepth) {
+            lowestFinishedDepth = depth;
+            blockFinished |= NodeHelper.isBlockTag(node);
+        }
+
+        if (depth == 0) {
+            finishParagraph();
+        }
+    }
+
+    /**
+     * Get the paragraphs after visiting the document
+     *
+     * @return
+     */
+    public List<Paragraph> getParagraphs()
+    {
+        return paragraphs;
+    }
+
+    private void mergeToResult(Node node, int depth)
+    {
+        //the <br><br> is a paragraph separator
+        if (lastAddedDepth >= 0 && node.nodeName().equalsIgnoreCase("br") && lastAddedBr) {
+            insertAsNewParagraph(node, depth);
+            return;
+        }
+        if (lastAddedDepth < 0) {
+            insertAsNewParagraph(node, depth);
+            return;
+        }
+
+        // the nearest common ancestor of the last added node and this one is the parent of the
+        // last finished ancestor of the last added node; a new paragraph starts if there is a
+        // block element between them on either side
+        int commonAncestorDepth = lowestFinishedDepth - 1;
+        if (blockFinished || blockCounts[depth - 1] > blockCounts[commonAncestorDepth]) {
+            insertAsNewParagraph(node, depth);
+        }
+        else {
+            appendToLastParagraph(node);
+        }
+    }
+
+    private void insertAsNewParagraph(Node node, int depth)
+    {
+        finishParagraph();
+
+        path = "";
+        rawText = "";
+        charsCountInLinks = 0;
+        if (node instanceof TextNode) {
+            path = getPath(depth - 1);
+            String nodeRawText = ((TextNode) node).text();
+            rawText = Utils.normalizeWhitespace(nodeRawText).trim();
+            if (openLinks > 0) {
+                charsCountInLinks += nodeRawText.length();
+            }
+        }
+    }
+
+    private void appendToLastParagraph(Node node)
+    {
+        //        if(!node.nodeName().equalsIgnoreCase("br")){
+        if (node instanceof TextNode) {
+            // the text is normalized again with each node (as the nodes are separated by
+            // spaces and the normalization is not idempotent)
+            String text = Utils.normalizeWhitespace(rawText.trim());
+            rawText = Utils.normalizeWhitespace((text + " " + node).trim());
+            if (openLinks > 0) {
+                charsCountInLinks += ((TextNode) node).text().length();
+            }
+        }
+    }
+
+    /**
+     * Adds the paragraph being built to the result
+     */
+    private void finishParagraph()
+    {
+        if (path != null) {
+            paragraphs.add(new Paragraph(path, Utils.normalizeWhitespace(rawText.trim()),
+                    charsCountInLinks, stopwords));
+            path = null;
+            rawText = null;
+        }
+    }
+
+    /**
+     * Updates the state of the traversal for an element with children
+     */
+    private void pushAncestor(Node node, int depth)
+    {
+        if (depth == blockCounts.length) {
+            int capacity = depth * 2;
+            blockCounts = Arrays.copyOf(blockCounts, capacity);
+            paths = Arrays.copyOf(paths, capacity);
+            reachedPaths = Arrays.copyOf(reachedPaths, capacity);
+        }
+
+        int parentBlockCount = depth > 0 ? blockCounts[depth - 1] : 0;
+        blockCounts[depth] = parentBlockCount + (NodeHelper.isBlockTag(node) ? 1 : 0);
+
+        // incremental NodeHelper#getPath(Node): the path is extended unless the html element
+        // is reached, one inner text tag is skipped
+        String name = node.nodeName();
+        String parentPath = depth > 0 ? paths[depth - 1] : rootParentPath;
+        reachedPaths[depth] = name.equalsIgnoreCase("html") ? name + "." : parentPath + name + ".";
+        if (depth == 0) {
+            paths[depth] = NodeHelper.getPath(node);
+        }
+        else {
+            paths[depth] = NodeHelper.isInnerText(node) ? reachedPaths[depth - 1]
+                    : reachedPaths[depth];
+        }
+    }
+
+    /**
+     * Returns the path of a child of the ancestor at the given depth
+     */
+    private String getPath(int parentDepth)
+    {
+        return parentDepth < 0 ? rootParentPath : paths[parentDepth];
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process-wide registry of the stoplists ({@code /stoplists/<language>.txt} on the
+ * classpath). The stoplists of {@link #LANGUAGES} are loaded once, when the registry is
+ * first used, and are the candidates of the language identification
+ * ({@link #getLanguageIdentifier()}); stoplists of other
+ * languages are loaded on demand. The stoplists are immutable, so they are shared by all
+ * threads and {@link JusTextBoilerplateRemoval} instances.
+ *
+ * @author Ivan Habernal
+ */
+public final class StoplistRegistry
+{
+    /**
+     * Languages with preloaded stoplists
+     */
+    public static final List<String> LANGUAGES = Collections.unmodifiableList(
+            Arrays.asList("en", "de", "fr", "es", "it", "nl"));
+
+    // initialized on the first access
+    private static class Holder
+    {
+        static final StoplistRegistry INSTANCE = new StoplistRegistry();
+    }
+
+    // key = locale of the language (no country)
+    private final Map<Locale, StopwordSet> preloaded;
+    // other languages; key = language
+    private final ConcurrentMap<String, StopwordSet> loadedOnDemand = new ConcurrentHashMap<>();
+
+    private final StopwordLanguageIdentifier languageIdentifier;
+
+    private StoplistRegistry()
+    {
+        Map<Locale, StopwordSet> map = new LinkedHashMap<>();
+        for (String language : LANGUAGES) {
+            Locale locale = new Locale(language);
+            try {
+                map.put(locale, new StopwordSet(Utils.loadStopWords(locale)));
+            }
+            catch (IOException e) {
+                throw new IllegalStateException("Cannot load the stoplist of " + language, e);
+            }
+        }
+        preloaded = Collections.unmodifiableMap(map);
+        languageIdentifier = new StopwordLanguageIdentifier(preloaded);
+    }
+
+    public static StoplistRegistry getInstance()
+    {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the preloaded stoplists (in the order of {@link #LANGUAGES})
+     *
+     * @return map (language locale, stoplist)
+     */
+    public Map<Locale, StopwordSet> getPreloaded()
+    {
+        return preloaded;
+    }
+
+    /**
+     * Returns the identifier of the languages of the preloaded stoplists
+     *
+     * @return language identifier
+     */
+    public StopwordLanguageIdentifier getLanguageIdentifier()
+    {
+        return languageIdentifier;
+    }
+
+    /**
+     * Returns the stoplist of the language of the locale
+     *
+     * @param locale locale
+     * @return stoplist
+     * @throws IOException if there is no stoplist for the language
+     */
+    public StopwordSet get(Locale locale)
+            throws IOException
+    {
+        String language = locale.getLanguage();
+        StopwordSet result = preloaded.get(new Locale(language));
+        if (result == null) {
+            result = loadedOnDemand.get(language);
+            if (result == null) {
+                // two threads may load the same list; the first one is kept
+                StopwordSet loaded = new StopwordSet(Utils.loadStopWords(locale));
+                result = loadedOnDemand.putIfAbsent(language, loaded);
+                if (result == null) {
+                    result = loaded;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Identifies the language of a text by its stopword profile: the language whose stoplist
+ * covers most of the words wins. Function words are the most frequent words of any text, so
+ * a few hundred words (including boilerplate such as menus) are enough to tell the languages
+ * of the stoplists apart; texts with too few stopwords of any language (e.g., in a language
+ * without a stoplist) are not identified.
+ * <p/>
+ * The words are the whitespace-separated tokens as in {@link Paragraph#getWordsCount()}; no
+ * strings are created for them. The instance is immutable and can be shared by threads.
+ * <p/>
+ * The stopwords of the identified language counted in the paragraphs are kept in them (see
+ * {@link Paragraph#stopwordsCount(StopwordSet)}), so the classification with the stoplist of
+ * the language does not count them again.
+ *
+ * @author Ivan Habernal
+ */
+public class StopwordLanguageIdentifier
+{
+    /**
+     * Only the first words of the text are used
+     */
+    public static final int MAX_WORDS = 10000;
+
+    /**
+     * Minimal number of stopwords of the identified language
+     */
+    public static final int MIN_STOPWORDS = 5;
+
+    /**
+     * Minimal ratio of the stopwords of the identified language to all words
+     */
+    public static final double MIN_STOPWORDS_RATIO = 0.1;
+
+    private final Locale[] languages;
+    private final StopwordSet[] stoplists;
+
+    /**
+     * @param stoplists candidate languages and their stoplists; on a tie the first language
+     *                  wins
+     */
+    public StopwordLanguageIdentifier(Map<Locale, StopwordSet> stoplists)
+    {
+        languages = stoplists.keySet().toArray(new Locale[stoplists.size()]);
+        this.stoplists = stoplists.values().toArray(new StopwordSet[stoplists.size()]);
+    }
+
+    /**
+     * Identifies the language of the text of the paragraphs; the paragraphs counted
+     * completely get the stopwords count of the identified language
+     *
+     * @param paragraphs paragraphs
+     * @return language or null if it cannot be identified
+     */
+    public Locale identify(List<Paragraph> paragraphs)
+    {
+        int n = stoplists.length;
+
+        // stopwords of each language in each paragraph that was counted completely
+        int[] paragraphCounts = new int[paragraphs.size() * n];
+        int counted = 0;
+
+        int[] counts = new int[n];
+        int words = 0;
+        for (Paragraph paragraph : paragraphs) {
+            int maxWords = MAX_WORDS - words;
+            int offset = counted * n;
+            int paragraphWords = count(paragraph.getRawText(), paragraphCounts, offset,
+                    maxWords);
+            words += paragraphWords;
+            for (int l = 0; l < n; l++) {
+                counts[l] += paragraphCounts[offset + l];
+            }
+            if (paragraphWords == maxWords) {
+                // the limit is reached, possibly inside the paragraph
+                break;
+            }
+            counted++;
+        }
+
+        int best = best(counts, words);
+        if (best < 0) {
+            return null;
+        }
+
+        Iterator<Paragraph> iterator = paragraphs.iterator();
+        for (int i = 0; i < counted; i++) {
+            iterator.next().setStopwordsCount(stoplists[best], paragraphCounts[i * n + best]);
+        }
+
+        return languages[best];
+    }
+
+    /**
+     * Identifies the language of the text
+     *
+     * @param text text
+     * @return language or null if it cannot be identified
+     */
+    public Locale identify(CharSequence text)
+    {
+        int[] counts = new int[stoplists.length];
+        int words = count(text, counts, 0, MAX_WORDS);
+        int best = best(counts, words);
+        return best < 0 ? null : languages[best];
+    }
+
+    /**
+     * Counts the stopwords of each language in the first words of the text; the count of
+     * language {@code l} is added to {@code counts[offset + l]}
+     *
+     * @return number of words
+     */
+    private int count(CharSequence text, int[] counts, int offset, int maxWords)
+    {
+        int length = text.length();
+        int words = 0;
+
+        int i = 0;
+        while (i < length && words < maxWords) {
+            while (i < length && Utils.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int start = i;
+            while (i < length && !Utils.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            words++;
+            for (int l = 0; l < stoplists.length; l++) {
+                if (stoplists[l].contains(text, start, i)) {
+                    counts[offset + l]++;
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the index of the language with the most stopwords
+     *
+     * @return index or -1 if there are too few stopwords
+     */
+    private int best(int[] counts, int words)
+    {
+        int best = -1;
+        for (int l = 0; l < counts.length; l++) {
+            if (best < 0 || counts[l] > counts[best]) {
+                best = l;
+            }
+        }
+        if (best < 0 || counts[best] < MIN_STOPWORDS
+                || counts[best] < MIN_STOPWORDS_RATIO * words) {
+            return -1;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Immutable set of lower-cased stopwords that is queried with parts of a
+ * {@link CharSequence}, so the tokens of a paragraph can be looked up without creating a
+ * string for each of them. The lookup is case-insensitive: a token is contained if its
+ * {@link String#toLowerCase()} is one of the stopwords.
+ *
+ * @author Ivan Habernal
+ */
+public class StopwordSet
+{
+    // open addressing with linear probing; null = empty slot
+    private final String[] keys;
+    private final int[] hashes;
+    private final int mask;
+    private final int size;
+
+    /**
+     * Creates the set; the words are lower-cased and trimmed
+     *
+     * @param words stopwords
+     */
+    public StopwordSet(Collection<String> words)
+    {
+        int capacity = 4;
+        while (capacity < words.size() * 2) {
+            capacity <<= 1;
+        }
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+
+        int count = 0;
+        for (String word : words) {
+            String key = word.toLowerCase().trim();
+            int hash = hash(key, 0, key.length(), false);
+            int slot = hash & mask;
+            while (keys[slot] != null && !(hashes[slot] == hash && keys[slot].equals(key))) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == null) {
+                keys[slot] = key;
+                hashes[slot] = hash;
+                count++;
+            }
+        }
+        size = count;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Returns true if the lower-cased string is a stopword
+     *
+     * @param word word
+     * @return boolean
+     */
+    public boolean contains(CharSequence word)
+    {
+        return contains(word, 0, word.length());
+    }
+
+    /**
+     * Returns true if the lower-cased part {@code [start, end)} of the text is a stopword
+     *
+     * @param text  text
+     * @param start start index (inclusive)
+     * @param end   end index (exclusive)
+     * @return boolean
+     */
+    public boolean contains(CharSequence text, int start, int end)
+    {
+        if (!isSimpleCaseFolding(text, start, end)) {
+            return containsKey(text.subSequence(start, end).toString().toLowerCase());
+        }
+
+        int hash = hash(text, start, end, true);
+        int slot = hash & mask;
+        String key;
+        while ((key = keys[slot]) != null) {
+            if (hashes[slot] == hash && equalsLowerCase(key, text, start, end)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private boolean containsKey(String key)
+    {
+        int hash = hash(key, 0, key.length(), false);
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].equals(key)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * {@link String#toLowerCase()} maps the text code point by code point with
+     * {@link Character#toLowerCase(int)} except for a few context or locale dependent
+     * characters; these are left to {@link String#toLowerCase()}
+     */
+    private static boolean isSimpleCaseFolding(CharSequence text, int start, int end)
+    {
+        String language = Locale.getDefault().getLanguage();
+        if ("tr".equals(language) || "az".equals(language) || "lt".equals(language)) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            // capital I with dot above, capital sigma (final sigma)
+            if (c == '\u0130' || c == '\u03A3') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence text, int start, int end, boolean toLowerCase)
+    {
+        int h = 0;
+        int i = start;
+        while (i < end) {
+            int codePoint = codePointAt(text, i, end);
+            i += Character.charCount(codePoint);
+            h = 31 * h + (toLowerCase ? Character.toLowerCase(codePoint) : codePoint);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * {@link Character#codePointAt(CharSequence, int)} that does not look beyond the end
+     */
+    private static int codePointAt(CharSequence text, int index, int end)
+    {
+        char high = text.charAt(index);
+        if (Character.isHighSurrogate(high) && index + 1 < end) {
+            char low = text.charAt(index + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(high, low);
+            }
+        }
+        return high;
+    }
+
+    private static boolean equalsLowerCase(String key, CharSequence text, int start, int end)
+    {
+        int k = 0;
+        int i = start;
+        while (i < end) {
+            if (k >= key.length()) {
+                return false;
+            }
+            int codePoint = codePointAt(text, i, end);
+            i += Character.charCount(codePoint);
+            int keyCodePoint = key.codePointAt(k);
+            k += Character.charCount(keyCodePoint);
+            if (Character.toLowerCase(codePoint) != keyCodePoint) {
+                return false;
+            }
+        }
+        return k == key.length();
+    }
+}
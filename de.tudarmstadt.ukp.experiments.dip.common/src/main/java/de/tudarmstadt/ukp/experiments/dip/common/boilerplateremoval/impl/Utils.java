@@ -16,13 +16,12 @@
  * limitations under the License.
  */
 
-package de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers.boilerplateremoval.impl;
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
 
 import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URISyntaxException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
@@ -40,22 +39,92 @@ public class Utils
      * Translates multiple whitespace into single space character. If there is
      * at least one new line character chunk is replaced by single LF (Unix new
      * line) character.
+     * <p/>
+     * Single pass equivalent of replacing {@code (\r\n|\r)} by {@code \n}, then
+     * {@code (?:(?![\n])\s+)} by a space and finally removing {@code <br>}: the new lines
+     * at the beginning of a whitespace run are kept, the rest of the run becomes a single
+     * space. Returns the same instance if there is nothing to replace.
      *
      * @param text
      * @return
      */
     public static String normalizeWhitespace(String text)
     {
+        int length = text.length();
+        // created at the first change only
+        StringBuilder sb = null;
+
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == '<' && text.startsWith("<br>", i)) {
+                //replace extra <br> (sometimes the paragraph contains <br><br>,
+                //the first one will be use as new paragraph marker but the second
+                //one must be removed)
+                if (sb == null) {
+                    sb = new StringBuilder(length).append(text, 0, i);
+                }
+                i += 4;
+            }
+            else if (!isWhitespace(c)) {
+                if (sb != null) {
+                    sb.append(c);
+                }
+                i++;
+            }
+            else {
+                int start = i;
+                int end = i;
+                while (end < length && isWhitespace(text.charAt(end))) {
+                    end++;
+                }
+
+                // leading new lines (\r\n and \r count as one)
+                int newLines = 0;
+                boolean carriageReturn = false;
+                while (i < end && (text.charAt(i) == '\n' || text.charAt(i) == '\r')) {
+                    if (text.charAt(i) == '\r') {
+                        carriageReturn = true;
+                        if (i + 1 < end && text.charAt(i + 1) == '\n') {
+                            i++;
+                        }
+                    }
+                    newLines++;
+                    i++;
+                }
+                boolean space = i < end;
+
+                // unchanged: new lines only, optionally followed by one space
+                boolean unchanged = !carriageReturn && (!space || (i + 1 == end
+                        && text.charAt(i) == ' '));
+                if (!unchanged && sb == null) {
+                    sb = new StringBuilder(length).append(text, 0, start);
+                }
+                if (sb != null) {
+                    for (int j = 0; j < newLines; j++) {
+                        sb.append('\n');
+                    }
+                    if (space) {
+                        sb.append(' ');
+                    }
+                }
+                i = end;
+            }
+        }
 
-        text = text.replaceAll("(\r\n|\r)", "\n");
-        //remove multiple white spaces but keep new lines
-        text = text.replaceAll("(?:(?![\n])\\s+)", " "); // or [\\s+&&[^\n])]
-        //replace extra <br> (sometimes the paragraph contains <br><br>, 
-        //the first one will be use as new paragraph marker but the second 
-        //one must be removed)
-        text = text.replaceAll("<br>", ""); // or [\\s+&&[^\n])]
+        return sb == null ? text : sb.toString();
+    }
 
-        return text;
+    /**
+     * Returns true for the whitespace characters of {@code \s} in regular expressions
+     * ({@code [ \t\n\x0B\f\r]})
+     *
+     * @param c character
+     * @return boolean
+     */
+    public static boolean isWhitespace(char c)
+    {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f' || c == '\u000B';
     }
 
     /**
@@ -73,12 +142,12 @@ public class Utils
     }
 
     /**
-     * load the stop-words list of a given language
+     * load the stop-words list of a given language (UTF-8, one word per line)
      *
      * @param locale
      * @return
-     * @throws URISyntaxException
      * @throws IOException
+     * @see StoplistRegistry
      */
     public static Set<String> loadStopWords(Locale locale)
             throws IOException
@@ -91,10 +160,13 @@ public class Utils
             throw new IOException("Stream " + streamName + " not found");
         }
 
-        List<String> stopList = IOUtils.readLines(stream);
-        HashSet<String> stopSet = new HashSet<String>(stopList);
-        return stopSet;
-
+        try {
+            List<String> stopList = IOUtils.readLines(stream, "utf-8");
+            return new HashSet<String>(stopList);
+        }
+        finally {
+            IOUtils.closeQuietly(stream);
+        }
     }
 
     private static final String WHITESPACE_CHARS = "" + "\\u0009" // CHARACTER TABULATION
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.tudarmstadt.ukp.experiments.dip.common;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ivan Habernal
+ */
+public class ClueWebIdCodecTest
+{
+    // sorted
+    private static final List<String> IDS = Arrays.asList(
+            "clueweb09-ar0000-00-00000",
+            "clueweb09-en0000-00-00000",
+            "clueweb09-en0011-35-12345",
+            "clueweb09-zh9999-99-99999",
+            "clueweb12-0000tw-00-00000",
+            "clueweb12-0000wb-00-00000",
+            "clueweb12-0001wb-50-11437",
+            "clueweb12-0710wb-90-29809",
+            "clueweb12-1905wb-13-07360",
+            "clueweb12-9999wb-99-99999");
+
+    @Test
+    public void testRoundTripAndOrder()
+            throws Exception
+    {
+        long previous = -1;
+        for (String id : IDS) {
+            long code = ClueWebIdCodec.encode(id);
+            assertTrue(id, code > previous);
+            assertEquals(id, ClueWebIdCodec.decode(code));
+            previous = code;
+        }
+    }
+
+    @Test
+    public void testInvalid()
+            throws Exception
+    {
+        for (String id : Arrays.asList(null, "", "clueweb12-0000wb-00-0000",
+                "clueweb12-0000WB-00-00000", "clueweb12-00a0wb-00-00000",
+                "clueweb10-0000wb-00-00000", "clueweb12-0000wb-00_00000",
+                "clueweb09-0000en-00-00000", "clueweb12-0000wb-00-000000")) {
+            assertEquals(String.valueOf(id), ClueWebIdCodec.INVALID, ClueWebIdCodec.encode(id));
+            assertFalse(ClueWebIdCodec.isValid(id));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.fs.Seekable;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ivan Habernal
+ */
+public class GzipMemberReaderTest
+{
+    private static final String[] MEMBERS = { "first member", "second member", "third member" };
+
+    // compressed offsets of the members and of the end of the file
+    private final long[] offsets = new long[MEMBERS.length + 1];
+
+    /**
+     * Writes the members without compression, so a changed content byte still inflates
+     */
+    private byte[] members()
+            throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int m = 0; m < MEMBERS.length; m++) {
+            offsets[m] = out.size();
+            GZIPOutputStream gzip = new GZIPOutputStream(out)
+            {
+                {
+                    def.setLevel(Deflater.NO_COMPRESSION);
+                }
+            };
+            gzip.write(MEMBERS[m].getBytes(StandardCharsets.UTF_8));
+            gzip.finish();
+        }
+        offsets[MEMBERS.length] = out.size();
+        return out.toByteArray();
+    }
+
+    private static GzipMemberReader open(byte[] bytes)
+    {
+        return new GzipMemberReader(new SeekableByteArrayInputStream(bytes), 0);
+    }
+
+    private static String readMember(GzipMemberReader reader)
+            throws IOException
+    {
+        return IOUtils.toString(reader.getMemberStream(), "utf-8");
+    }
+
+    @Test
+    public void testMembers()
+            throws Exception
+    {
+        try (GzipMemberReader reader = open(members())) {
+            for (int m = 0; m < MEMBERS.length; m++) {
+                assertTrue(reader.nextMember());
+                assertEquals(offsets[m], reader.getMemberOffset());
+                assertEquals(MEMBERS[m], readMember(reader));
+            }
+            assertFalse(reader.nextMember());
+            assertEquals(offsets[MEMBERS.length], reader.getPosition());
+
+            // random access
+            reader.seek(offsets[1]);
+            assertTrue(reader.nextMember());
+            assertEquals(MEMBERS[1], readMember(reader));
+        }
+    }
+
+    @Test
+    public void testCrcMismatch()
+            throws Exception
+    {
+        // the last content byte of the first member (before the 8-byte trailer)
+        byte[] bytes = members();
+        bytes[(int) offsets[1] - 9] ^= 1;
+
+        assertCorrupt(bytes, "CRC32 mismatch");
+    }
+
+    @Test
+    public void testLengthMismatch()
+            throws Exception
+    {
+        // the length in the trailer of the first member
+        byte[] bytes = members();
+        bytes[(int) offsets[1] - 4]++;
+
+        assertCorrupt(bytes, "length mismatch");
+    }
+
+    private static class SeekableByteArrayInputStream
+            extends ByteArrayInputStream
+            implements Seekable
+    {
+        public SeekableByteArrayInputStream(byte[] buf)
+        {
+            super(buf);
+        }
+
+        @Override
+        public void seek(long pos)
+        {
+            this.pos = (int) pos;
+        }
+
+        @Override
+        public long getPos()
+        {
+            return pos;
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPos)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * The first member fails at its end; the others can be read after skipping it
+     */
+    private void assertCorrupt(byte[] bytes, String message)
+            throws IOException
+    {
+        try (GzipMemberReader reader = open(bytes)) {
+            assertTrue(reader.nextMember());
+            try {
+                readMember(reader);
+                fail();
+            }
+            catch (ZipException e) {
+                assertTrue(e.getMessage(), e.getMessage().endsWith(message));
+            }
+
+            assertTrue(reader.skipToNextMember());
+            assertTrue(reader.nextMember());
+            assertEquals(offsets[1], reader.getMemberOffset());
+            assertEquals(MEMBERS[1], readMember(reader));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Ivan Habernal
+ */
+public class HTTPResponseDecoderTest
+{
+    private static final String CYRILLIC = "<html><body><p>Привет, мир</p></body></html>";
+
+    private static final String CZECH = "<p>Příliš žluťoučký kůň</p></body></html>";
+
+    private static byte[] response(String header, byte[]... body)
+            throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(header.getBytes(StandardCharsets.US_ASCII));
+        for (byte[] part : body) {
+            out.write(part);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testCharsetFromHeaderOnly()
+            throws Exception
+    {
+        byte[] content = response("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/html; charset=windows-1251\r\n"
+                + "Content-Length: 44\r\n"
+                + "\r\n", CYRILLIC.getBytes("windows-1251"));
+
+        assertEquals(Charset.forName("windows-1251"), HTTPResponseDecoder
+                .detectCharset(content, HTTPResponseDecoder.findHeaderEnd(content)));
+        assertEquals(CYRILLIC, HTTPResponseDecoder.decodeBody(content));
+    }
+
+    @Test
+    public void testCharsetFromMetaOnly()
+            throws Exception
+    {
+        String meta = "<html><head><meta http-equiv=\"Content-Type\" "
+                + "content=\"text/html; charset=iso-8859-2\"></head><body>\n";
+        byte[] content = response("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/html\r\n"
+                + "\r\n", (meta + CZECH).getBytes("iso-8859-2"));
+
+        assertEquals(meta + CZECH, HTTPResponseDecoder.decodeBody(content));
+
+        // the HTTP header takes precedence over the meta tag
+        content = response("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/html; charset=utf-8\r\n"
+                + "\r\n", (meta + CZECH).getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(meta + CZECH, HTTPResponseDecoder.decodeBody(content));
+    }
+
+    @Test
+    public void testUtf16ByteOrderMark()
+            throws Exception
+    {
+        String header = "HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/html\r\n"
+                + "\r\n";
+
+        byte[] bigEndian = response(header, new byte[] { (byte) 0xFE, (byte) 0xFF },
+                CYRILLIC.getBytes(StandardCharsets.UTF_16BE));
+        assertEquals(CYRILLIC, HTTPResponseDecoder.decodeBody(bigEndian));
+
+        byte[] littleEndian = response(header, new byte[] { (byte) 0xFF, (byte) 0xFE },
+                CYRILLIC.getBytes(StandardCharsets.UTF_16LE));
+        assertEquals(CYRILLIC, HTTPResponseDecoder.decodeBody(littleEndian));
+
+        // UTF-8 byte order mark
+        byte[] utf8 = response(header, new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF },
+                CYRILLIC.getBytes(StandardCharsets.UTF_8));
+        assertEquals(CYRILLIC, HTTPResponseDecoder.decodeBody(utf8));
+    }
+
+    @Test
+    public void testMissingEmptyLine()
+            throws Exception
+    {
+        // the body follows the header without an empty line; the rest of the header after
+        // Content-Length is skipped up to the first tag
+        byte[] content = response("HTTP/1.1 200 OK\r\n"
+                + "Content-Length: 44\r\n"
+                + "Content-Type: text/html; charset=utf-8\r\n"
+                + "Connection: close\r\n", CYRILLIC.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(CYRILLIC, HTTPResponseDecoder.decodeBody(content));
+    }
+
+    @Test
+    public void testLatin1MappedToWindows1252()
+            throws Exception
+    {
+        // curly quotes are undefined in ISO-8859-1 but common in pages declaring it
+        byte[] content = response("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/html; charset=ISO-8859-1\r\n"
+                + "\r\n", "<p>".getBytes(StandardCharsets.US_ASCII),
+                new byte[] { (byte) 0x93, 'c', 'a', 'f', (byte) 0xE9, (byte) 0x94 },
+                "</p>".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(Charset.forName("windows-1252"), HTTPResponseDecoder
+                .detectCharset(content, HTTPResponseDecoder.findHeaderEnd(content)));
+        assertEquals("<p>“café”</p>", HTTPResponseDecoder.decodeBody(content));
+    }
+
+    @Test
+    public void testTextBeforeFirstTag()
+            throws Exception
+    {
+        // only the leading whitespace is removed, the text before the first tag is kept
+        byte[] content = response("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/html; charset=utf-8\r\n"
+                + "\r\n", "\r\n \tHello <b>world</b>".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("Hello <b>world</b>", HTTPResponseDecoder.decodeBody(content));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common;
+
+import com.martinkl.warc.WARCRecord;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Ivan Habernal
+ */
+public class WARCRecordParserTest
+{
+    private static byte[] member(String... trecIds)
+            throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            for (String trecId : trecIds) {
+                String content = "content of " + trecId;
+                gzip.write(("WARC/1.0\r\n" + "WARC-Type: response\r\n" + "WARC-TREC-ID: "
+                        + trecId + "\r\n" + "Content-Length: " + content.length() + "\r\n\r\n"
+                        + content + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static DataInputStream memberInput(GzipMemberReader reader)
+            throws IOException
+    {
+        assertTrue(reader.nextMember());
+        return new DataInputStream(new BufferedInputStream(reader.getMemberStream()));
+    }
+
+    @Test
+    public void testReadRecords()
+            throws Exception
+    {
+        GzipMemberReader reader = new GzipMemberReader(
+                new ByteArrayInputStream(member("id-1", "id-2")), 0);
+        DataInputStream input = memberInput(reader);
+
+        WARCRecord record = WARCRecordParser.readRecord(input);
+        assertEquals("id-1", record.getHeader().getField("WARC-TREC-ID"));
+        record = WARCRecordParser.readRecord(input);
+        assertEquals("id-2", record.getHeader().getField("WARC-TREC-ID"));
+        assertEquals("content of id-2", new String(record.getContent(), StandardCharsets.UTF_8));
+        assertNull(WARCRecordParser.readRecord(input));
+    }
+
+    @Test
+    public void testCorruptMember()
+            throws Exception
+    {
+        // CRC32 in the trailer
+        byte[] bytes = member("id-1");
+        bytes[bytes.length - 8] ^= 1;
+
+        GzipMemberReader reader = new GzipMemberReader(new ByteArrayInputStream(bytes), 0);
+        DataInputStream input = memberInput(reader);
+
+        // the only record is not returned
+        try {
+            WARCRecordParser.readRecord(input);
+            fail();
+        }
+        catch (ZipException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("CRC32 mismatch"));
+        }
+    }
+}
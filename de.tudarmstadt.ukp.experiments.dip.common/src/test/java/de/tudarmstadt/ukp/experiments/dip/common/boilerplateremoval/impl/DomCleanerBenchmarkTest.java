@@ -0,0 +1,237 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the single-pass {@link DomCleaner} with a re-creation of the previous cleaning
+ * (separate {@code select} passes and comment removal; empty elements and redundant wrappers
+ * removed by repeating full traversals until nothing changes) on a large generated ClueWeb-like
+ * page and reports the times. Skipped unless run with {@code -Dbenchmark=true}; the cleaning
+ * itself is tested by {@link DomCleanerTest}. The page size can be set by
+ * {@code -Dbenchmark.page.blocks=N}.
+ *
+ * @author Ivan Habernal
+ */
+public class DomCleanerBenchmarkTest
+{
+    private static final int REPETITIONS = 5;
+
+    private static String html;
+
+    @BeforeClass
+    public static void generatePage()
+    {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+
+        html = generatePage(Integer.getInteger("benchmark.page.blocks", 2000));
+    }
+
+    @Test
+    public void testCleanDom()
+    {
+        Document expected = Jsoup.parse(html);
+        legacyCleanDom(expected);
+        Document actual = Jsoup.parse(html);
+        new JusTextBoilerplateRemoval().cleanDom(actual);
+        assertEquals(expected.outerHtml(), actual.outerHtml());
+
+        long legacy = 0;
+        long singlePass = 0;
+        for (int i = 0; i < REPETITIONS; i++) {
+            Document document = Jsoup.parse(html);
+            long time = System.nanoTime();
+            legacyCleanDom(document);
+            legacy += System.nanoTime() - time;
+
+            document = Jsoup.parse(html);
+            time = System.nanoTime();
+            new JusTextBoilerplateRemoval().cleanDom(document);
+            singlePass += System.nanoTime() - time;
+        }
+
+        report("cleanDom", legacy, singlePass);
+    }
+
+    @Test
+    public void testFullCleaning()
+    {
+        DomCleaner cleaner = new DomCleaner(JusTextBoilerplateRemoval.UNWANTED_TAGS,
+                JusTextBoilerplateRemoval.UNWANTED_CLASSES, true, true, true);
+
+        Document expected = Jsoup.parse(html);
+        legacyFullCleaning(expected);
+        Document actual = Jsoup.parse(html);
+        actual.traverse(cleaner);
+        assertEquals(expected.outerHtml(), actual.outerHtml());
+
+        long legacy = 0;
+        long singlePass = 0;
+        for (int i = 0; i < REPETITIONS; i++) {
+            Document document = Jsoup.parse(html);
+            long time = System.nanoTime();
+            legacyFullCleaning(document);
+            legacy += System.nanoTime() - time;
+
+            document = Jsoup.parse(html);
+            time = System.nanoTime();
+            document.traverse(cleaner);
+            singlePass += System.nanoTime() - time;
+        }
+
+        report("cleanDom + empty elements + redundant wrappers", legacy, singlePass);
+    }
+
+    /**
+     * Typical layout of a crawled page: navigation, nested wrappers, scripts, comments, hidden
+     * and empty blocks and text paragraphs
+     */
+    private static String generatePage(int blocks)
+    {
+        Random random = new Random(0);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html>\n<!-- saved from url -->\n<html><head><title>Page</title>")
+                .append("<script>var x = 1;</script><style>p {}</style></head><body>\n");
+        for (int i = 0; i < blocks; i++) {
+            switch (random.nextInt(8)) {
+            case 0:
+                sb.append("<ul class=\"menu\">");
+                for (int j = 0; j < 5; j++) {
+                    sb.append("<li><a href=\"/page").append(j).append("\">Link ").append(j)
+                            .append("</a></li>");
+                }
+                sb.append("</ul>\n");
+                break;
+            case 1:
+                sb.append("<script type=\"text/javascript\">document.write('").append(i)
+                        .append("');</script>\n");
+                break;
+            case 2:
+                sb.append("<!-- block ").append(i).append(" --><div class=\"hidden\"><p>Hidden ")
+                        .append(i).append("</p></div>\n");
+                break;
+            case 3:
+                sb.append("<div><div><div><span> </span><div></div></div></div></div>\n");
+                break;
+            case 4:
+                sb.append("<div><div><div><p>Wrapped paragraph ").append(i)
+                        .append("</p></div></div></div>\n");
+                break;
+            default:
+                sb.append("<p>");
+                int words = 20 + random.nextInt(60);
+                for (int j = 0; j < words; j++) {
+                    sb.append(j % 11 == 5 ? "<b>word</b>" : "word").append(j).append(' ');
+                }
+                sb.append("<!-- inline comment --></p>\n");
+            }
+        }
+        sb.append("</body></html>\n<!-- generated -->");
+
+        return sb.toString();
+    }
+
+    private static void legacyCleanDom(Document document)
+    {
+        for (String tag : Arrays.asList("head", "script", ".hidden", "embedded")) {
+            for (Element element : document.select(tag)) {
+                element.remove();
+            }
+        }
+        for (Element element : document.getAllElements()) {
+            for (Node n : element.childNodes()) {
+                legacyRemoveComments(n);
+            }
+        }
+    }
+
+    private static void legacyRemoveComments(Node node)
+    {
+        for (int i = 0; i < node.childNodes().size(); ) {
+            Node child = node.childNode(i);
+            if (child.nodeName().equals("#comment")) {
+                child.remove();
+            }
+            else {
+                legacyRemoveComments(child);
+                i++;
+            }
+        }
+    }
+
+    private static void legacyFullCleaning(Document document)
+    {
+        legacyCleanDom(document);
+
+        // until nothing changes
+        boolean modified;
+        do {
+            modified = false;
+            for (Element element : document.getAllElements()) {
+                for (int i = 0; i < element.childNodeSize(); ) {
+                    if (NodeHelper.isEmptyElement(element.childNode(i))) {
+                        element.childNode(i).remove();
+                        modified = true;
+                    }
+                    else {
+                        i++;
+                    }
+                }
+            }
+        }
+        while (modified);
+
+        do {
+            modified = false;
+            for (Element element : document.getAllElements()) {
+                if (element.childNodeSize() == 1) {
+                    Node child = element.childNode(0);
+                    if (child.childNodeSize() == 1 && child.nodeName()
+                            .equalsIgnoreCase(element.nodeName())
+                            && child.attributes().size() == 0) {
+                        child.unwrap();
+                        modified = true;
+                    }
+                }
+            }
+        }
+        while (modified);
+    }
+
+    private static void report(String name, long legacyNanos, long singlePassNanos)
+    {
+        System.out.printf("%s (%d chars): previous %.1f ms, single pass %.1f ms (%.1fx)%n",
+                name, html.length(), legacyNanos / 1e6 / REPETITIONS,
+                singlePassNanos / 1e6 / REPETITIONS, legacyNanos / (double) singlePassNanos);
+    }
+}
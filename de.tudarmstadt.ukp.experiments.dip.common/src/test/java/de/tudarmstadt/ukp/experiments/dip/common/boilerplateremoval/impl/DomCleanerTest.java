@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Ivan Habernal
+ */
+public class DomCleanerTest
+{
+    private static Document parse(String html)
+    {
+        Document document = Jsoup.parse(html);
+        document.outputSettings().prettyPrint(false);
+        return document;
+    }
+
+    private static DomCleaner cleaner(boolean removeEmptyElements, boolean unwrapRedundantTags)
+    {
+        return new DomCleaner(JusTextBoilerplateRemoval.UNWANTED_TAGS,
+                JusTextBoilerplateRemoval.UNWANTED_CLASSES, true, removeEmptyElements,
+                unwrapRedundantTags);
+    }
+
+    @Test
+    public void testCleanDom()
+    {
+        Document document = parse("<!DOCTYPE html><!-- saved from url -->"
+                + "<html><head><title>Page</title><script>var x = 1;</script></head><body>"
+                + "<!-- block --><script>document.write('x');</script>"
+                + "<div class=\"menu hidden\"><p>Hidden</p></div>"
+                + "<p>Some <!-- inline -->text<embedded>object</embedded></p>"
+                + "<div><span> </span></div>"
+                + "</body></html>");
+        new JusTextBoilerplateRemoval().cleanDom(document);
+
+        // the comment right below the root is kept; empty elements are not removed
+        assertEquals("<!DOCTYPE html><!-- saved from url -->"
+                + "<html><body><p>Some text</p><div><span> </span></div></body></html>",
+                document.outerHtml());
+    }
+
+    @Test
+    public void testEmptyElements()
+    {
+        Document document = parse("<body><div><div><span> </span><div></div></div>\n</div>"
+                + "<p>Text<br></p><p><!-- comment --></p></body>");
+        document.traverse(cleaner(true, false));
+
+        // emptied by removing their children; the br tag is an empty tag, not an empty element
+        assertEquals("<p>Text<br></p>", document.body().html());
+    }
+
+    @Test
+    public void testRedundantWrappers()
+    {
+        Document document = parse("<body><div><div><div><p>Wrapped</p></div></div></div>"
+                + "<div><div class=\"content\"><p>Kept</p></div></div>"
+                + "<div><div><p>One</p><p>Two</p></div></div></body>");
+        document.traverse(cleaner(false, true));
+
+        // only a single child with a single child is unwrapped
+        assertEquals("<div><p>Wrapped</p></div>"
+                + "<div><div class=\"content\"><p>Kept</p></div></div>"
+                + "<div><div><p>One</p><p>Two</p></div></div>", document.body().html());
+    }
+
+    @Test
+    public void testUnwantedClasses()
+    {
+        Document document = parse("<body><ul class=\"nav\"><li>Home</li></ul>"
+                + "<div class=\"ad\"><p>Buy</p></div><p>Text</p></body>");
+        document.traverse(new DomCleaner(Collections.<String>emptyList(),
+                Arrays.asList("nav", "ad"), false, false, false));
+
+        assertEquals("<p>Text</p>", document.body().html());
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ivan Habernal
+ */
+public class StoplistRegistryTest
+{
+    @Test
+    public void testPreloaded()
+            throws Exception
+    {
+        StoplistRegistry registry = StoplistRegistry.getInstance();
+        assertSame(registry, StoplistRegistry.getInstance());
+
+        Map<Locale, StopwordSet> preloaded = registry.getPreloaded();
+        List<Locale> expected = new ArrayList<>();
+        for (String language : StoplistRegistry.LANGUAGES) {
+            expected.add(new Locale(language));
+        }
+        assertEquals(expected, new ArrayList<>(preloaded.keySet()));
+
+        for (Map.Entry<Locale, StopwordSet> entry : preloaded.entrySet()) {
+            StopwordSet stoplist = entry.getValue();
+            assertEquals(Utils.loadStopWords(entry.getKey()).size(), stoplist.size());
+
+            // shared, also for locales with a country
+            assertSame(stoplist, registry.get(entry.getKey()));
+            assertSame(stoplist, registry.get(new Locale(entry.getKey().getLanguage(), "XX")));
+        }
+
+        // the lookup is case-insensitive
+        StopwordSet english = registry.get(Locale.ENGLISH);
+        assertTrue(english.contains("The"));
+        assertFalse(english.contains("Museum"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingStoplist()
+            throws Exception
+    {
+        StoplistRegistry.getInstance().get(new Locale("xx"));
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Ivan Habernal
+ */
+public class StopwordLanguageIdentifierTest
+{
+    private static final String ENGLISH = "The museum is one of the largest in the country and "
+            + "it has been open to the public since the collection was moved there by the city.";
+
+    private static final String GERMAN = "Das Museum ist eines der größten des Landes und es "
+            + "ist für die Öffentlichkeit geöffnet, seit die Sammlung von der Stadt dorthin "
+            + "gebracht wurde.";
+
+    private static final String FRENCH = "Le musée est l'un des plus grands du pays et il est "
+            + "ouvert au public depuis que la collection y a été transférée par la ville.";
+
+    private static final String SPANISH = "El museo es uno de los más grandes del país y está "
+            + "abierto al público desde que la colección fue trasladada allí por la ciudad.";
+
+    private static final String ITALIAN = "Il museo è uno dei più grandi del paese ed è aperto "
+            + "al pubblico da quando la collezione è stata trasferita lì dalla città.";
+
+    private static final String DUTCH = "Het museum is een van de grootste van het land en het "
+            + "is open voor het publiek sinds de collectie er door de stad naartoe werd gebracht.";
+
+    /**
+     * Two made-up languages with five stopwords each
+     */
+    private static StopwordLanguageIdentifier identifier()
+    {
+        Map<Locale, StopwordSet> stoplists = new LinkedHashMap<>();
+        stoplists.put(new Locale("xa"), new StopwordSet(Arrays.asList("a1", "a2", "a3", "a4",
+                "a5")));
+        stoplists.put(new Locale("xb"), new StopwordSet(Arrays.asList("b1", "b2", "b3", "b4",
+                "b5")));
+        return new StopwordLanguageIdentifier(stoplists);
+    }
+
+    private static String words(String word, int count)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(word).append(' ');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testPreloadedLanguages()
+    {
+        StopwordLanguageIdentifier identifier = StoplistRegistry.getInstance()
+                .getLanguageIdentifier();
+
+        assertEquals(new Locale("en"), identifier.identify(ENGLISH));
+        assertEquals(new Locale("de"), identifier.identify(GERMAN));
+        assertEquals(new Locale("fr"), identifier.identify(FRENCH));
+        assertEquals(new Locale("es"), identifier.identify(SPANISH));
+        assertEquals(new Locale("it"), identifier.identify(ITALIAN));
+        assertEquals(new Locale("nl"), identifier.identify(DUTCH));
+
+        // no stoplist
+        assertNull(identifier.identify("Музей является одним из крупнейших в стране и открыт "
+                + "для посетителей с тех пор, как город перевёз туда коллекцию."));
+    }
+
+    @Test
+    public void testMinStopwords()
+    {
+        StopwordLanguageIdentifier identifier = identifier();
+        int minStopwords = StopwordLanguageIdentifier.MIN_STOPWORDS;
+
+        // all words are stopwords, but too few of them
+        assertNull(identifier.identify(words("a1", minStopwords - 1)));
+        assertEquals(new Locale("xa"), identifier.identify(words("a1", minStopwords)));
+
+        // the most frequent language wins, the first one on a tie
+        assertEquals(new Locale("xb"), identifier.identify(words("a2", minStopwords)
+                + words("b2", minStopwords + 1)));
+        assertEquals(new Locale("xa"), identifier.identify(words("b3", minStopwords)
+                + words("a3", minStopwords)));
+    }
+
+    @Test
+    public void testMinStopwordsRatio()
+    {
+        StopwordLanguageIdentifier identifier = identifier();
+
+        // 10 stopwords in 100 words are enough, in 101 words they are not
+        int stopwords = 10;
+        int words = (int) Math.round(stopwords / StopwordLanguageIdentifier.MIN_STOPWORDS_RATIO);
+        assertEquals(new Locale("xa"), identifier.identify(words("A4", stopwords)
+                + words("word", words - stopwords)));
+        assertNull(identifier.identify(words("A4", stopwords)
+                + words("word", words - stopwords + 1)));
+    }
+
+    @Test
+    public void testMaxWords()
+    {
+        StopwordLanguageIdentifier identifier = identifier();
+
+        int maxWords = StopwordLanguageIdentifier.MAX_WORDS;
+        int stopwords = (int) (maxWords * StopwordLanguageIdentifier.MIN_STOPWORDS_RATIO);
+
+        // the stopwords after the first MAX_WORDS words are not counted
+        assertNull(identifier.identify(words("word", maxWords) + words("a5", stopwords)));
+        assertEquals(new Locale("xa"), identifier.identify(
+                words("word", maxWords - stopwords) + words("a5", stopwords)));
+    }
+
+    @Test
+    public void testParagraphStopwordsCounts()
+    {
+        StoplistRegistry registry = StoplistRegistry.getInstance();
+
+        List<Paragraph> paragraphs = new ArrayList<>();
+        for (String text : Arrays.asList(GERMAN, "", "Impressum | Kontakt", GERMAN + GERMAN)) {
+            paragraphs.add(new Paragraph("html.body.p.", text, 0, null));
+        }
+        assertEquals(new Locale("de"), registry.getLanguageIdentifier().identify(paragraphs));
+
+        // the same counts as of the paragraphs created with the stoplist
+        StopwordSet german = registry.getPreloaded().get(new Locale("de"));
+        for (Paragraph paragraph : paragraphs) {
+            Paragraph expected = new Paragraph(paragraph.getTagName(), paragraph.getRawText(), 0,
+                    german);
+            assertEquals(expected.stopwordsCount(german), paragraph.stopwordsCount(german));
+        }
+    }
+
+    @Test
+    public void testClassifyIdentifiedLanguage()
+            throws Exception
+    {
+        String html = "<html><body><ul><li><a href=\"/\">Home</a></li><li><a href=\"/about\">"
+                + "About</a></li></ul><h1>Museum</h1><p>" + ENGLISH + " " + ENGLISH
+                + "</p><p>Copyright 2016</p><p>" + ENGLISH + "</p></body></html>";
+
+        JusTextBoilerplateRemoval boilerplateRemoval = new JusTextBoilerplateRemoval();
+        List<Paragraph> expected = boilerplateRemoval.classify(html, Locale.ENGLISH);
+        List<Paragraph> actual = boilerplateRemoval.classify(html, null);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getRawText(), actual.get(i).getRawText());
+            assertEquals(expected.get(i).getClassType(), actual.get(i).getClassType());
+        }
+    }
+}
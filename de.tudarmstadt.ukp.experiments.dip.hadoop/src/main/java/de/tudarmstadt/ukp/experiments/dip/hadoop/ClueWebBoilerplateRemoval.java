@@ -0,0 +1,279 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import com.martinkl.warc.WARCRecord;
+import com.martinkl.warc.WARCWritable;
+import de.tudarmstadt.ukp.experiments.dip.common.HTTPResponseDecoder;
+import de.tudarmstadt.ukp.experiments.dip.common.LinguisticPreprocessor;
+import de.tudarmstadt.ukp.experiments.dip.common.XmlSanitizer;
+import de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.BoilerPlateRemoval;
+import de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl.JusTextBoilerplateRemoval;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.apache.uima.UIMAException;
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SortedSet;
+
+/**
+ * Runs the boilerplate removal ({@code Step4BoilerPlateRemoval}) and optionally the
+ * paragraph/sentence/token annotation ({@code Step5LinguisticPreprocessing}) in the mappers on
+ * the matching WARC records, so the CPU-heavy processing is done next to the data instead of on
+ * a single machine after the extraction. Takes the same arguments and options as
+ * {@link ClueWebTRECIdFileExtractor} (table of IDs, input pruning, {@link WARCRecordFilter}).
+ * <p/>
+ * It is a map-only job; the output ({@code outputPath/part-m-*}) is a set of block-compressed
+ * {@code SequenceFile}s with the TREC ID as {@link Text} key and a {@link MapWritable} value
+ * with the fields of {@code QueryResultContainer.SingleRankedResult}: {@code plainText} (the
+ * minimal html) and, with {@code -Dmapreduce.mapper.boilerplate.segmentation=true}, also
+ * {@code originalXmi} (base64-encoded XMI). Documents that end up empty have no
+ * {@code originalXmi}; documents the boilerplate removal fails on are counted and skipped.
+ * The found/missing IDs are reported the same way as by the extractor; only the documents in
+ * the output are found, so the skipped ones are reported as missing.
+ * <p/>
+ * For instance:
+ * <pre>
+ *     hadoop jar de.tudarmstadt.ukp.experiments.dip.hadoop-0.2-SNAPSHOT.jar \
+ *     de.tudarmstadt.ukp.experiments.dip.hadoop.ClueWebBoilerplateRemoval \
+ *     -Dmapreduce.mapper.boilerplate.segmentation=true /user/habernal/ClueWeb12/*.warc.gz \
+ *     /user/habernal/dip-boilerplate-removed ltr-50queries-100docs.txt
+ * </pre>
+ *
+ * @author Ivan Habernal
+ */
+public class ClueWebBoilerplateRemoval
+        extends Configured
+        implements Tool
+{
+    public static final String MAPREDUCE_MAPPER_BOILERPLATE_SEGMENTATION = "mapreduce.mapper.boilerplate.segmentation";
+
+    // field names as in QueryResultContainer.SingleRankedResult
+    public static final Text PLAIN_TEXT = new Text("plainText");
+    public static final Text ORIGINAL_XMI = new Text("originalXmi");
+
+    /**
+     * Counters of the processing of the matching documents
+     */
+    public enum BoilerplateCounter
+    {
+        PROCESSED,
+        FAILED,
+        EMPTY
+    }
+
+    @Override
+    public int run(String[] args)
+            throws Exception
+    {
+        Job job = Job.getInstance(getConf());
+
+        job.setJarByClass(ClueWebBoilerplateRemoval.class);
+        job.setJobName(ClueWebBoilerplateRemoval.class.getName());
+
+        // mapper only
+        job.setMapperClass(BoilerplateRemovalMapper.class);
+        job.setNumReduceTasks(0);
+
+        // input
+        job.setInputFormatClass(PrunedWARCInputFormat.class);
+
+        // output
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(MapWritable.class);
+        job.setOutputFormatClass(SequenceFileOutputFormat.class);
+        FileOutputFormat.setCompressOutput(job, true);
+        SequenceFileOutputFormat.setOutputCompressionType(job, SequenceFile.CompressionType.BLOCK);
+        MultipleOutputs.addNamedOutput(job, ClueWebTRECIdFileExtractor.FOUND,
+                TextOutputFormat.class, Text.class, NullWritable.class);
+
+        // paths
+        String commaSeparatedInputFiles = args[0];
+        String outputPath = args[1];
+
+        // load IDs to be searched for and ship them as a binary table next to the output
+        SortedSet<String> trecIds = ClueWebTRECIdFileExtractor.loadTrecIds(args[2]);
+        Path trecIdsTable = new Path(outputPath + "-" + ClueWebTRECIdFileExtractor.TREC_IDS
+                + ".bin");
+        ClueWebTRECIdFileExtractor.writeTrecIdTable(
+                ClueWebTRECIdFileExtractor.toMapWithoutQueries(trecIds),
+                job.getConfiguration().getBoolean(
+                        ClueWebTRECIdFileExtractor.MAPREDUCE_MAPPER_TREC_IDS_BLOOM, true),
+                trecIdsTable, job);
+
+        // scan only the WARC files the IDs can come from
+        if (job.getConfiguration().getBoolean(
+                ClueWebTRECIdFileExtractor.MAPREDUCE_INPUT_TREC_IDS_PRUNING, true)) {
+            PrunedWARCInputFormat.setRequiredTrecIds(job, trecIds);
+        }
+
+        FileInputFormat.addInputPaths(job, commaSeparatedInputFiles);
+        FileOutputFormat.setOutputPath(job, new Path(outputPath));
+
+        if (!job.waitForCompletion(true)) {
+            return 1;
+        }
+
+        Counters counters = job.getCounters();
+        for (ExtractionCounter counter : ExtractionCounter.values()) {
+            System.out.println(counter + ": " + counters.findCounter(counter).getValue());
+        }
+        for (BoilerplateCounter counter : BoilerplateCounter.values()) {
+            System.out.println(counter + ": " + counters.findCounter(counter).getValue());
+        }
+
+        ClueWebTRECIdFileExtractor.writeMissingTrecIds(trecIds, new Path(outputPath), job);
+
+        return 0;
+    }
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        ToolRunner.run(new ClueWebBoilerplateRemoval(), args);
+    }
+
+    /**
+     * Mapper; removes the HTTP headers and the boilerplate of the matching records (the same
+     * way as {@code Step3AddRawDocumentsFromClueWeb} and {@code Step4BoilerPlateRemoval}) and
+     * optionally annotates them
+     */
+    public static class BoilerplateRemovalMapper
+            extends Mapper<LongWritable, WARCWritable, Text, MapWritable>
+    {
+        private TrecIdMatcher matcher;
+
+        private BoilerPlateRemoval boilerPlateRemoval;
+
+        // null if the segmentation is off
+        private LinguisticPreprocessor preprocessor;
+
+        private final Text trecId = new Text();
+        private final Text plainText = new Text();
+        private final Text originalXmi = new Text();
+        private final MapWritable result = new MapWritable();
+
+        private MultipleOutputs<Text, MapWritable> multipleOutputs;
+
+        @Override
+        protected void setup(Context context)
+                throws IOException, InterruptedException
+        {
+            super.setup(context);
+            // memory-map the table from the distributed cache
+            matcher = new TrecIdMatcher(
+                    TrecIdTable.map(new File("./" + ClueWebTRECIdFileExtractor.TREC_IDS)),
+                    new WARCRecordFilter(context.getConfiguration()));
+            multipleOutputs = new MultipleOutputs<>(context);
+
+            boilerPlateRemoval = new JusTextBoilerplateRemoval();
+
+            if (context.getConfiguration().getBoolean(MAPREDUCE_MAPPER_BOILERPLATE_SEGMENTATION,
+                    false)) {
+                try {
+                    preprocessor = new LinguisticPreprocessor();
+                }
+                catch (UIMAException e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+
+        @Override
+        protected void map(LongWritable key, WARCWritable value, Context context)
+                throws IOException, InterruptedException
+        {
+            WARCRecord record = value.getRecord();
+
+            context.getCounter(ExtractionCounter.RECORDS_SCANNED).increment(1);
+            context.getCounter(ExtractionCounter.BYTES_SCANNED).increment(
+                    record.getHeader().getContentLength());
+
+            TrecIdMatcher.Outcome outcome = matcher.match(record);
+            if (outcome.getCounter() != null) {
+                context.getCounter(outcome.getCounter()).increment(1);
+            }
+            if (outcome != TrecIdMatcher.Outcome.MATCHED) {
+                return;
+            }
+
+            if (matcher.isTruncated()) {
+                context.getCounter(ExtractionCounter.TRUNCATED).increment(1);
+            }
+
+            trecId.set(matcher.getTrecId());
+
+            String html = XmlSanitizer.sanitize(
+                    HTTPResponseDecoder.decodeBody(matcher.getRecord().getContent()).trim());
+
+            result.clear();
+            try {
+                String minimalHtml = boilerPlateRemoval.getMinimalHtml(html, null);
+                plainText.set(minimalHtml);
+                result.put(PLAIN_TEXT, plainText);
+
+                if (preprocessor != null) {
+                    String encoded = preprocessor.process(minimalHtml);
+                    if (encoded == null) {
+                        context.getCounter(BoilerplateCounter.EMPTY).increment(1);
+                    }
+                    else {
+                        originalXmi.set(encoded);
+                        result.put(ORIGINAL_XMI, originalXmi);
+                    }
+                }
+            }
+            catch (IllegalArgumentException | IllegalStateException | UIMAException
+                    | SAXException e) {
+                // a single malformed page must not fail the whole task
+                System.err.println("Processing " + trecId + " failed: " + e);
+                context.getCounter(BoilerplateCounter.FAILED).increment(1);
+                return;
+            }
+
+            context.getCounter(BoilerplateCounter.PROCESSED).increment(1);
+            context.write(trecId, result);
+            multipleOutputs.write(ClueWebTRECIdFileExtractor.FOUND, trecId, NullWritable.get());
+        }
+
+        @Override
+        protected void cleanup(Context context)
+                throws IOException, InterruptedException
+        {
+            multipleOutputs.close();
+        }
+    }
+}
@@ -18,27 +18,53 @@
 
 package de.tudarmstadt.ukp.experiments.dip.hadoop;
 
+import com.martinkl.warc.WARCRecord;
 import com.martinkl.warc.WARCWritable;
-import com.martinkl.warc.mapreduce.WARCInputFormat;
 import com.martinkl.warc.mapreduce.WARCOutputFormat;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MapFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Map;
-import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Extracts WARC records given a list of of TREC-IDs (in a text file); the matching results
@@ -47,6 +73,31 @@ import java.util.Set;
  * In order to create only a single warc.gz file, run with
  * {@code -Dmapreduce.job.reduces=1} parameter
  * <p/>
+ * The IDs are not passed in the job configuration but as a {@link TrecIdTable} shipped through
+ * the distributed cache, so the job scales to millions of IDs; the Bloom filter in front of the
+ * table can be switched off with {@code -Dmapreduce.mapper.trec_ids.bloom=false}
+ * <p/>
+ * Only the input WARC files that can contain the requested ClueWeb IDs are scanned (see
+ * {@link PrunedWARCInputFormat}); use {@code -Dmapreduce.input.trec_ids.pruning=false} to scan
+ * all input files
+ * <p/>
+ * With {@code -Dmapreduce.output.trec_ids.per_query=true} the records are written into one
+ * directory per query ({@code outputPath/queryId/part-r-*.warc.gz}, using the query ID from the
+ * first column of the results file); a record retrieved for several queries is written into
+ * each of them
+ * <p/>
+ * With {@code -Dmapreduce.output.trec_ids.mapfile=true} the output is a set of block-compressed
+ * {@code MapFile}s ({@code outputPath/part-r-*}) with the TREC ID as key and the HTTP body
+ * (without HTTP headers) as {@code BytesWritable} value, so single documents can be looked up
+ * without reading the whole output ({@code ClueWebMapFileReader} in the common module); it cannot
+ * be combined with the per-query output
+ * <p/>
+ * The records can be filtered by type, content type and length, see {@link WARCRecordFilter}
+ * <p/>
+ * The job reports {@link ExtractionCounter}s; the IDs found are written by the mappers into
+ * {@code outputPath/found-m-*} and after the job finishes, the requested IDs that were not
+ * found (or were filtered out) are listed in {@code outputPath/missing-trec-ids.txt}
+ * <p/>
  * For instance:
  * <pre>
  *     habernal@node-00b:~/dip-trec-extractor$ hadoop jar \
@@ -63,7 +114,18 @@ public class ClueWebTRECIdFileExtractor
         extends Configured
         implements Tool
 {
-    public static final String MAPREDUCE_MAPPER_TREC_IDS = "mapreduce.mapper.trec_ids";
+    public static final String MAPREDUCE_MAPPER_TREC_IDS_BLOOM = "mapreduce.mapper.trec_ids.bloom";
+    public static final String MAPREDUCE_INPUT_TREC_IDS_PRUNING = "mapreduce.input.trec_ids.pruning";
+    public static final String MAPREDUCE_OUTPUT_TREC_IDS_PER_QUERY = "mapreduce.output.trec_ids.per_query";
+    public static final String MAPREDUCE_OUTPUT_TREC_IDS_MAPFILE = "mapreduce.output.trec_ids.mapfile";
+
+    // name of the distributed cache symlink
+    static final String TREC_IDS = "trec_ids";
+
+    // named output with the IDs found by the mappers
+    static final String FOUND = "found";
+
+    static final String MISSING_TREC_IDS_FILE = "missing-trec-ids.txt";
 
     @Override
     public int run(String[] args)
@@ -78,29 +140,187 @@ public class ClueWebTRECIdFileExtractor
         job.setJarByClass(ClueWebTRECIdFileExtractor.class);
         job.setJobName(ClueWebTRECIdFileExtractor.class.getName());
 
+        boolean perQuery = job.getConfiguration().getBoolean(MAPREDUCE_OUTPUT_TREC_IDS_PER_QUERY,
+                false);
+        boolean mapFile = job.getConfiguration().getBoolean(MAPREDUCE_OUTPUT_TREC_IDS_MAPFILE,
+                false);
+
+        if (mapFile && perQuery) {
+            System.err.println("Per-query output cannot be combined with MapFile output");
+            return 1;
+        }
+
         // mapper
         job.setMapperClass(MapperClass.class);
 
         // input
-        job.setInputFormatClass(WARCInputFormat.class);
+        job.setInputFormatClass(PrunedWARCInputFormat.class);
 
         // output
-        job.setOutputFormatClass(WARCOutputFormat.class);
         job.setOutputKeyClass(NullWritable.class);
         job.setOutputValueClass(WARCWritable.class);
         FileOutputFormat.setCompressOutput(job, true);
 
+        if (mapFile) {
+            // HTTP bodies keyed by TREC ID, sorted by the reducers
+            job.setMapOutputKeyClass(Text.class);
+            job.setMapOutputValueClass(BytesWritable.class);
+            job.setOutputKeyClass(Text.class);
+            job.setOutputValueClass(BytesWritable.class);
+            job.setOutputFormatClass(MapFileOutputFormat.class);
+            SequenceFileOutputFormat.setOutputCompressionType(job,
+                    SequenceFile.CompressionType.BLOCK);
+        }
+        else if (perQuery) {
+            // records keyed by query ID, the reducer writes them into per-query directories
+            job.setMapOutputKeyClass(Text.class);
+            job.setReducerClass(QueryPartitioningReducer.class);
+            // no empty default part files
+            LazyOutputFormat.setOutputFormatClass(job, WARCOutputFormat.class);
+        }
+        else {
+            job.setMapOutputKeyClass(NullWritable.class);
+            job.setOutputFormatClass(WARCOutputFormat.class);
+        }
+        MultipleOutputs.addNamedOutput(job, FOUND, TextOutputFormat.class, Text.class,
+                NullWritable.class);
+
         // paths
         String commaSeparatedInputFiles = args[0];
         String outputPath = args[1];
 
-        // load IDs to be searched for
-        job.getConfiguration().set(MAPREDUCE_MAPPER_TREC_IDS, loadTrecIds(args[2]));
+        // load IDs to be searched for and ship them as a binary table next to the output
+        SortedMap<String, SortedSet<String>> trecIdsToQueries = loadTrecIdsWithQueries(args[2]);
+        SortedSet<String> trecIds = new TreeSet<>(trecIdsToQueries.keySet());
+        Path trecIdsTable = new Path(outputPath + "-" + TREC_IDS + ".bin");
+        writeTrecIdTable(perQuery ? trecIdsToQueries : toMapWithoutQueries(trecIds),
+                job.getConfiguration().getBoolean(MAPREDUCE_MAPPER_TREC_IDS_BLOOM, true),
+                trecIdsTable, job);
+
+        // scan only the WARC files the IDs can come from
+        if (job.getConfiguration().getBoolean(MAPREDUCE_INPUT_TREC_IDS_PRUNING, true)) {
+            PrunedWARCInputFormat.setRequiredTrecIds(job, trecIds);
+        }
 
         FileInputFormat.addInputPaths(job, commaSeparatedInputFiles);
         FileOutputFormat.setOutputPath(job, new Path(outputPath));
 
-        return job.waitForCompletion(true) ? 0 : 1;
+        if (!job.waitForCompletion(true)) {
+            return 1;
+        }
+
+        Counters counters = job.getCounters();
+        for (ExtractionCounter counter : ExtractionCounter.values()) {
+            System.out.println(counter + ": " + counters.findCounter(counter).getValue());
+        }
+
+        writeMissingTrecIds(trecIds, new Path(outputPath), job);
+
+        return 0;
+    }
+
+    /**
+     * Collects the IDs written into the {@link #FOUND} named output and writes the requested
+     * IDs that are not among them into {@link #MISSING_TREC_IDS_FILE} in the output directory
+     *
+     * @param trecIds    requested IDs
+     * @param outputPath job output
+     * @param job        finished job
+     * @return missing IDs
+     * @throws IOException exception
+     */
+    static SortedSet<String> writeMissingTrecIds(SortedSet<String> trecIds, Path outputPath,
+            Job job)
+            throws IOException
+    {
+        SortedSet<String> missing = new TreeSet<>(trecIds);
+        missing.removeAll(readNamedOutput(outputPath, FOUND, job.getConfiguration()));
+
+        writeMissingTrecIds(trecIds.size(), missing, outputPath, job.getConfiguration());
+
+        return missing;
+    }
+
+    /**
+     * Reads the lines of a named text output ({@code outputPath/name-*}) written with
+     * {@link MultipleOutputs}
+     *
+     * @param outputPath job output
+     * @param name       named output
+     * @param conf       configuration
+     * @return trimmed lines
+     * @throws IOException exception
+     */
+    static SortedSet<String> readNamedOutput(Path outputPath, String name, Configuration conf)
+            throws IOException
+    {
+        FileSystem fs = outputPath.getFileSystem(conf);
+        SortedSet<String> result = new TreeSet<>();
+
+        // the named outputs are compressed like the rest of the output
+        CompressionCodecFactory codecs = new CompressionCodecFactory(conf);
+
+        FileStatus[] files = fs.globStatus(new Path(outputPath, name + "-*"));
+        if (files != null) {
+            for (FileStatus file : files) {
+                CompressionCodec codec = codecs.getCodec(file.getPath());
+                InputStream in = fs.open(file.getPath());
+                if (codec != null) {
+                    in = codec.createInputStream(in);
+                }
+
+                try (BufferedReader br = new BufferedReader(new InputStreamReader(in,
+                        StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        result.add(line.trim());
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes the missing IDs into {@link #MISSING_TREC_IDS_FILE} in the output directory
+     *
+     * @param requested  number of requested IDs
+     * @param missing    missing IDs
+     * @param outputPath output directory
+     * @param conf       configuration
+     * @throws IOException exception
+     */
+    static void writeMissingTrecIds(int requested, Collection<String> missing, Path outputPath,
+            Configuration conf)
+            throws IOException
+    {
+        writeMissingIds(requested, missing, new Path(outputPath, MISSING_TREC_IDS_FILE), conf);
+    }
+
+    /**
+     * Writes the missing IDs into the given file, one per line
+     *
+     * @param requested   number of requested IDs
+     * @param missing     missing IDs
+     * @param missingFile output file
+     * @param conf        configuration
+     * @throws IOException exception
+     */
+    static void writeMissingIds(int requested, Collection<String> missing, Path missingFile,
+            Configuration conf)
+            throws IOException
+    {
+        FileSystem fs = missingFile.getFileSystem(conf);
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(fs.create(missingFile, true),
+                StandardCharsets.UTF_8))) {
+            for (String id : missing) {
+                pw.println(id);
+            }
+        }
+
+        System.out.println("Found " + (requested - missing.size()) + " out of " + requested
+                + " IDs; missing IDs are in " + missingFile);
     }
 
     /**
@@ -112,23 +332,80 @@ public class ClueWebTRECIdFileExtractor
      * </pre>
      *
      * @param irResultsFile file
-     * @return a new-line delimited IDs
+     * @return sorted IDs
+     * @throws IOException
+     */
+    static SortedSet<String> loadTrecIds(String irResultsFile)
+            throws IOException
+    {
+        return new TreeSet<>(loadTrecIdsWithQueries(irResultsFile).keySet());
+    }
+
+    /**
+     * Same as {@link #loadTrecIds(String)} but keeps the query IDs (first column) of each TREC
+     * ID
+     *
+     * @param irResultsFile file
+     * @return sorted TREC IDs with their sorted query IDs
      * @throws IOException
      */
-    static String loadTrecIds(String irResultsFile)
+    static SortedMap<String, SortedSet<String>> loadTrecIdsWithQueries(String irResultsFile)
             throws IOException
     {
-        StringBuilder sb = new StringBuilder();
+        SortedMap<String, SortedSet<String>> result = new TreeMap<>();
+
+        try (BufferedReader br = new BufferedReader(new FileReader(irResultsFile))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                // split line
+                String[] split = line.split(" ");
+                String queryId = split[0];
+                String trecId = split[2];
+
+                if (!result.containsKey(trecId)) {
+                    result.put(trecId, new TreeSet<String>());
+                }
+                result.get(trecId).add(queryId);
+            }
+        }
+
+        return result;
+    }
+
+    static SortedMap<String, SortedSet<String>> toMapWithoutQueries(
+            SortedSet<String> trecIds)
+    {
+        SortedMap<String, SortedSet<String>> result = new TreeMap<>();
+        for (String trecId : trecIds) {
+            result.put(trecId, new TreeSet<String>());
+        }
+        return result;
+    }
 
-        BufferedReader br = new BufferedReader(new FileReader(irResultsFile));
-        String line;
-        while ((line = br.readLine()) != null) {
-            // split line
-            sb.append(line.split(" ")[2]);
-            sb.append("\n");
+    /**
+     * Writes the IDs as {@link TrecIdTable} to the job's file system and registers it in the
+     * distributed cache; the table is deleted when the client exits.
+     *
+     * @param trecIds IDs with their queries (no queries are stored if all sets are empty)
+     * @param bloom   whether the table has a Bloom filter
+     * @param path    target path
+     * @param job     job
+     * @throws IOException exception
+     */
+    static void writeTrecIdTable(SortedMap<String, SortedSet<String>> trecIds, boolean bloom,
+            Path path, Job job)
+            throws IOException
+    {
+        FileSystem fs = path.getFileSystem(job.getConfiguration());
+        try (FSDataOutputStream out = fs.create(path, true)) {
+            TrecIdTable.write(trecIds, bloom, out);
         }
+        fs.deleteOnExit(path);
 
-        return sb.toString();
+        URI uri = fs.makeQualified(path).toUri();
+        job.addCacheFile(URI.create(uri.toString() + "#" + TREC_IDS));
+
+        System.out.println("Shipping " + trecIds.size() + " TREC IDs in " + uri);
     }
 
     public static void main(String[] args)
@@ -138,32 +415,117 @@ public class ClueWebTRECIdFileExtractor
     }
 
     /**
-     * Mapper; omits WARCWritable for matching entries (with particular WARC-TREC-ID)
+     * Mapper; omits WARCWritable for matching entries (with particular WARC-TREC-ID); the key is
+     * {@link NullWritable} or, if the table has queries, the query ID (one output per query)
      */
     public static class MapperClass
-            extends Mapper<LongWritable, WARCWritable, NullWritable, WARCWritable>
+            extends Mapper<LongWritable, WARCWritable, Writable, Writable>
     {
-        final Set<String> ids = new HashSet<String>();
+        TrecIdMatcher matcher;
+
+        private final Text queryId = new Text();
+        private final Text foundId = new Text();
+        private final BytesWritable httpBody = new BytesWritable();
+
+        private MultipleOutputs<Writable, Writable> multipleOutputs;
+
+        private boolean mapFile;
 
         @Override
         protected void setup(Context context)
                 throws IOException, InterruptedException
         {
             super.setup(context);
-            String trecIds = context.getConfiguration().get(MAPREDUCE_MAPPER_TREC_IDS);
-            ids.addAll(Arrays.asList(trecIds.split("\n")));
+            // memory-map the table from the distributed cache
+            matcher = new TrecIdMatcher(TrecIdTable.map(new File("./" + TREC_IDS)),
+                    new WARCRecordFilter(context.getConfiguration()));
+            multipleOutputs = new MultipleOutputs<>(context);
+            mapFile = context.getConfiguration().getBoolean(MAPREDUCE_OUTPUT_TREC_IDS_MAPFILE,
+                    false);
         }
 
         @Override
         protected void map(LongWritable key, WARCWritable value, Context context)
                 throws IOException, InterruptedException
         {
-            String trecId = value.getRecord().getHeader().getField("WARC-TREC-ID");
+            WARCRecord record = value.getRecord();
+
+            context.getCounter(ExtractionCounter.RECORDS_SCANNED).increment(1);
+            context.getCounter(ExtractionCounter.BYTES_SCANNED).increment(
+                    record.getHeader().getContentLength());
+
+            TrecIdMatcher.Outcome outcome = matcher.match(record);
+            if (outcome.getCounter() != null) {
+                context.getCounter(outcome.getCounter()).increment(1);
+            }
+            if (outcome != TrecIdMatcher.Outcome.MATCHED) {
+                return;
+            }
+
+            if (matcher.isTruncated()) {
+                context.getCounter(ExtractionCounter.TRUNCATED).increment(1);
+                value = new WARCWritable(matcher.getRecord());
+            }
 
-            if (ids.contains(trecId)) {
+            foundId.set(matcher.getTrecId());
+            multipleOutputs.write(FOUND, foundId, NullWritable.get());
+
+            if (mapFile) {
+                byte[] content = matcher.getRecord().getContent();
+                int bodyOffset = WARCRecordFilter.findHttpBodyOffset(content);
+                httpBody.set(content, bodyOffset, content.length - bodyOffset);
+                context.write(foundId, httpBody);
+            }
+            else if (matcher.hasQueries()) {
+                for (String query : matcher.getQueries()) {
+                    queryId.set(query);
+                    context.write(queryId, value);
+                }
+            }
+            else {
                 context.write(NullWritable.get(), value);
             }
         }
+
+        @Override
+        protected void cleanup(Context context)
+                throws IOException, InterruptedException
+        {
+            multipleOutputs.close();
+        }
     }
-}
 
+    /**
+     * Writes the records of each query into a separate directory named by the query ID
+     */
+    public static class QueryPartitioningReducer
+            extends Reducer<Text, WARCWritable, NullWritable, WARCWritable>
+    {
+        private MultipleOutputs<NullWritable, WARCWritable> multipleOutputs;
+
+        @Override
+        protected void setup(Context context)
+                throws IOException, InterruptedException
+        {
+            multipleOutputs = new MultipleOutputs<>(context);
+        }
+
+        @Override
+        protected void reduce(Text key, Iterable<WARCWritable> values, Context context)
+                throws IOException, InterruptedException
+        {
+            String baseOutputPath = key.toString() + "/part";
+
+            for (WARCWritable value : values) {
+                multipleOutputs.write(NullWritable.get(), value, baseOutputPath);
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context)
+                throws IOException, InterruptedException
+        {
+            multipleOutputs.close();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import com.martinkl.warc.WARCWritable;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MapFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * One-time indexing job over a ClueWeb WARC collection; for each {@code WARC-TREC-ID} it
+ * records the file and the compressed offset of the gzip member holding the record. The
+ * output is a set of block-compressed {@code MapFile}s (one per reducer, partitioned by the
+ * default hash partitioner) that {@link WARCRecordFetcher} uses for random access. Records of
+ * truncated members are not indexed (see {@link WARCMemberInputFormat}).
+ * <p/>
+ * For instance:
+ * <pre>
+ *     hadoop jar de.tudarmstadt.ukp.experiments.dip.hadoop-0.2-SNAPSHOT.jar \
+ *     de.tudarmstadt.ukp.experiments.dip.hadoop.ClueWebTRECIdIndexer \
+ *     -Dmapreduce.job.reduces=20 /user/habernal/ClueWeb12/*.warc.gz \
+ *     /user/habernal/ClueWeb12-trec-id-index
+ * </pre>
+ *
+ * @author Ivan Habernal
+ */
+public class ClueWebTRECIdIndexer
+        extends Configured
+        implements Tool
+{
+    @Override
+    public int run(String[] args)
+            throws Exception
+    {
+        Job job = Job.getInstance(getConf());
+
+        job.setJarByClass(ClueWebTRECIdIndexer.class);
+        job.setJobName(ClueWebTRECIdIndexer.class.getName());
+
+        // mapper and reducer
+        job.setMapperClass(IndexMapper.class);
+        job.setReducerClass(IndexReducer.class);
+
+        // input
+        job.setInputFormatClass(WARCMemberInputFormat.class);
+
+        // output
+        job.setOutputFormatClass(MapFileOutputFormat.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(WARCRecordLocation.class);
+        FileOutputFormat.setCompressOutput(job, true);
+        SequenceFileOutputFormat.setOutputCompressionType(job, SequenceFile.CompressionType.BLOCK);
+
+        // paths
+        String commaSeparatedInputFiles = args[0];
+        String outputPath = args[1];
+
+        FileInputFormat.addInputPaths(job, commaSeparatedInputFiles);
+        FileOutputFormat.setOutputPath(job, new Path(outputPath));
+
+        if (!job.waitForCompletion(true)) {
+            return 1;
+        }
+
+        System.out.println(ExtractionCounter.TRUNCATED_MEMBERS + ": " + job.getCounters()
+                .findCounter(ExtractionCounter.TRUNCATED_MEMBERS).getValue());
+
+        return 0;
+    }
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        ToolRunner.run(new ClueWebTRECIdIndexer(), args);
+    }
+
+    /**
+     * Emits (TREC ID, location) for each record that has a TREC ID
+     */
+    public static class IndexMapper
+            extends Mapper<LongWritable, WARCWritable, Text, WARCRecordLocation>
+    {
+        private final Text file = new Text();
+        private final Text trecId = new Text();
+        private final WARCRecordLocation location = new WARCRecordLocation();
+
+        @Override
+        protected void setup(Context context)
+                throws IOException, InterruptedException
+        {
+            super.setup(context);
+            file.set(((FileSplit) context.getInputSplit()).getPath().toString());
+        }
+
+        @Override
+        protected void map(LongWritable key, WARCWritable value, Context context)
+                throws IOException, InterruptedException
+        {
+            String id = value.getRecord().getHeader().getField("WARC-TREC-ID");
+
+            if (id != null) {
+                trecId.set(id);
+                location.set(file, key.get());
+                context.write(trecId, location);
+            }
+        }
+    }
+
+    /**
+     * Keeps the first location of each ID (IDs are unique in ClueWeb)
+     */
+    public static class IndexReducer
+            extends Reducer<Text, WARCRecordLocation, Text, WARCRecordLocation>
+    {
+        @Override
+        protected void reduce(Text key, Iterable<WARCRecordLocation> values, Context context)
+                throws IOException, InterruptedException
+        {
+            Iterator<WARCRecordLocation> iterator = values.iterator();
+            context.write(key, iterator.next());
+
+            if (iterator.hasNext()) {
+                System.err.println("Duplicate TREC ID " + key + ", keeping the first location");
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+/**
+ * Custom counters of the extraction jobs ({@link ClueWebTRECIdFileExtractor},
+ * {@link OriginalURLGrep})
+ *
+ * @author Ivan Habernal
+ */
+public enum ExtractionCounter
+{
+    /**
+     * Input records (WARC records or lines)
+     */
+    RECORDS_SCANNED,
+    /**
+     * Bytes of the input records (WARC content length or line length)
+     */
+    BYTES_SCANNED,
+    /**
+     * Records matching one of the requested IDs (and passing the filters)
+     */
+    MATCHES,
+    /**
+     * WARC records other than {@code response} (they have no TREC ID), or generally of other
+     * than the accepted types (see {@link WARCRecordFilter})
+     */
+    SKIPPED_NON_RESPONSE,
+    /**
+     * Matching records without an HTML content type
+     */
+    SKIPPED_NON_HTML,
+    /**
+     * Matching records longer than the maximum length
+     */
+    SKIPPED_TOO_LONG,
+    /**
+     * Matching records truncated to the maximum length (also counted as matches)
+     */
+    TRUNCATED,
+    /**
+     * Gzip members ending inside a record, typically the last member of a truncated file (see
+     * {@link WARCMemberInputFormat}); the rest of the file is skipped
+     */
+    TRUNCATED_MEMBERS,
+    /**
+     * Distinct requested IDs in the reduce-side join of {@link OriginalURLGrep}
+     */
+    REQUESTED_IDS
+}
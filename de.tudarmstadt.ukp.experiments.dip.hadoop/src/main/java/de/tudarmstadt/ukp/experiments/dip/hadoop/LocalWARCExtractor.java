@@ -0,0 +1,314 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import com.martinkl.warc.WARCFileReader;
+import com.martinkl.warc.WARCFileWriter;
+import com.martinkl.warc.WARCRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the same extraction as {@link ClueWebTRECIdFileExtractor} on a single machine without
+ * submitting a job; takes the same arguments and options. The input files are processed in
+ * parallel by a fixed thread pool ({@code -Dlocal.extractor.threads=N}, number of cores by
+ * default), one task per file. Each input file with a match gets its own output file
+ * {@code part-l-NNNNN.seg-00000.attempt-00000.warc.gz} (named after the position of the input
+ * file), so the output can be read like the output of the MapReduce job.
+ * <p/>
+ * For instance:
+ * <pre>
+ *     hadoop jar de.tudarmstadt.ukp.experiments.dip.hadoop-0.2-SNAPSHOT.jar \
+ *     de.tudarmstadt.ukp.experiments.dip.hadoop.LocalWARCExtractor \
+ *     -Dlocal.extractor.threads=32 file:///data/ClueWeb12/*&#47;*.warc.gz \
+ *     file:///data/dip-docs-for-queries ltr-50queries-100docs.txt
+ * </pre>
+ *
+ * @author Ivan Habernal
+ */
+public class LocalWARCExtractor
+        extends Configured
+        implements Tool
+{
+    public static final String LOCAL_EXTRACTOR_THREADS = "local.extractor.threads";
+
+    private final Map<ExtractionCounter, AtomicLong> counters = new EnumMap<>(
+            ExtractionCounter.class);
+
+    private final Set<String> found = new ConcurrentSkipListSet<>();
+
+    public LocalWARCExtractor()
+    {
+        for (ExtractionCounter counter : ExtractionCounter.values()) {
+            counters.put(counter, new AtomicLong());
+        }
+    }
+
+    @Override
+    public int run(String[] args)
+            throws Exception
+    {
+        final Configuration conf = getConf();
+
+        boolean perQuery = conf.getBoolean(
+                ClueWebTRECIdFileExtractor.MAPREDUCE_OUTPUT_TREC_IDS_PER_QUERY, false);
+
+        // hash-partitioned sorted output needs the shuffle
+        if (conf.getBoolean(ClueWebTRECIdFileExtractor.MAPREDUCE_OUTPUT_TREC_IDS_MAPFILE,
+                false)) {
+            System.err.println("MapFile output is only supported by "
+                    + ClueWebTRECIdFileExtractor.class.getSimpleName());
+            return 1;
+        }
+        int threads = conf.getInt(LOCAL_EXTRACTOR_THREADS,
+                Runtime.getRuntime().availableProcessors());
+
+        // paths
+        String commaSeparatedInputFiles = args[0];
+        final Path outputPath = new Path(args[1]);
+
+        FileSystem outputFs = outputPath.getFileSystem(conf);
+        if (outputFs.exists(outputPath)) {
+            throw new IOException("Output directory " + outputPath + " already exists");
+        }
+
+        // load IDs to be searched for; the table is shared by all threads
+        SortedMap<String, SortedSet<String>> trecIdsToQueries = ClueWebTRECIdFileExtractor
+                .loadTrecIdsWithQueries(args[2]);
+        SortedSet<String> trecIds = new TreeSet<>(trecIdsToQueries.keySet());
+
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        TrecIdTable.write(perQuery ?
+                        trecIdsToQueries :
+                        ClueWebTRECIdFileExtractor.toMapWithoutQueries(trecIds),
+                conf.getBoolean(ClueWebTRECIdFileExtractor.MAPREDUCE_MAPPER_TREC_IDS_BLOOM, true),
+                new DataOutputStream(table));
+        final TrecIdTable ids = TrecIdTable.wrap(ByteBuffer.wrap(table.toByteArray()));
+
+        List<Path> inputFiles = listInputFiles(commaSeparatedInputFiles, trecIds, conf);
+
+        System.out.println("Extracting " + trecIds.size() + " TREC IDs from " + inputFiles.size()
+                + " files using " + threads + " threads");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < inputFiles.size(); i++) {
+                final Path inputFile = inputFiles.get(i);
+                final String partName = String.format("part-l-%05d", i);
+
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call()
+                            throws Exception
+                    {
+                        extract(inputFile, outputPath, partName, ids, conf);
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                }
+                catch (ExecutionException e) {
+                    executor.shutdownNow();
+                    throw new IOException("Extraction failed", e.getCause());
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        for (ExtractionCounter counter : ExtractionCounter.values()) {
+            System.out.println(counter + ": " + counters.get(counter).get());
+        }
+
+        outputFs.mkdirs(outputPath);
+        SortedSet<String> missing = new TreeSet<>(trecIds);
+        missing.removeAll(found);
+        ClueWebTRECIdFileExtractor.writeMissingTrecIds(trecIds.size(), missing, outputPath, conf);
+
+        return 0;
+    }
+
+    /**
+     * Expands the comma-separated input paths (globs allowed) and keeps only the files that
+     * can contain the IDs (unless pruning is switched off)
+     */
+    private static List<Path> listInputFiles(String commaSeparatedInputFiles,
+            Set<String> trecIds, Configuration conf)
+            throws IOException
+    {
+        List<Path> all = new ArrayList<>();
+        for (String input : commaSeparatedInputFiles.split(",")) {
+            Path path = new Path(input);
+            FileStatus[] statuses = path.getFileSystem(conf).globStatus(path);
+            if (statuses == null || statuses.length == 0) {
+                throw new IOException("Input path does not exist: " + path);
+            }
+            for (FileStatus status : statuses) {
+                if (!status.isDirectory()) {
+                    all.add(status.getPath());
+                }
+            }
+        }
+        // stable part numbers; Path is a raw Comparable
+        Collections.sort(all, new Comparator<Path>()
+        {
+            @Override
+            public int compare(Path o1, Path o2)
+            {
+                return o1.toString().compareTo(o2.toString());
+            }
+        });
+
+        Set<String> required = null;
+        if (conf.getBoolean(ClueWebTRECIdFileExtractor.MAPREDUCE_INPUT_TREC_IDS_PRUNING, true)) {
+            required = PrunedWARCInputFormat.getRequiredWarcFileKeys(trecIds);
+        }
+        if (required == null) {
+            return all;
+        }
+
+        List<Path> result = new ArrayList<>();
+        for (Path path : all) {
+            if (PrunedWARCInputFormat.isRequired(path, required)) {
+                result.add(path);
+            }
+        }
+
+        System.out.println("Scheduling " + result.size() + " out of " + all.size()
+                + " input WARC files");
+
+        return result;
+    }
+
+    /**
+     * Scans a single input file; output writers are created on the first match
+     */
+    private void extract(Path inputFile, Path outputPath, String partName, TrecIdTable ids,
+            Configuration conf)
+            throws IOException
+    {
+        TrecIdMatcher matcher = new TrecIdMatcher(ids, new WARCRecordFilter(conf));
+
+        // output sub-path (part or query/part) -> writer
+        Map<String, WARCFileWriter> writers = new HashMap<>();
+
+        WARCFileReader reader = new WARCFileReader(conf, inputFile);
+        try {
+            while (true) {
+                WARCRecord record;
+                try {
+                    record = reader.read();
+                }
+                catch (EOFException e) {
+                    break;
+                }
+
+                counters.get(ExtractionCounter.RECORDS_SCANNED).incrementAndGet();
+                counters.get(ExtractionCounter.BYTES_SCANNED).addAndGet(
+                        record.getHeader().getContentLength());
+
+                TrecIdMatcher.Outcome outcome = matcher.match(record);
+                if (outcome.getCounter() != null) {
+                    counters.get(outcome.getCounter()).incrementAndGet();
+                }
+                if (outcome != TrecIdMatcher.Outcome.MATCHED) {
+                    continue;
+                }
+
+                if (matcher.isTruncated()) {
+                    counters.get(ExtractionCounter.TRUNCATED).incrementAndGet();
+                    record = matcher.getRecord();
+                }
+
+                found.add(matcher.getTrecId());
+
+                if (matcher.hasQueries()) {
+                    for (String query : matcher.getQueries()) {
+                        getWriter(writers, query + "/" + partName, outputPath, conf)
+                                .write(record);
+                    }
+                }
+                else {
+                    getWriter(writers, partName, outputPath, conf).write(record);
+                }
+            }
+        }
+        finally {
+            reader.close();
+            for (WARCFileWriter writer : writers.values()) {
+                writer.close();
+            }
+        }
+    }
+
+    private static WARCFileWriter getWriter(Map<String, WARCFileWriter> writers, String name,
+            Path outputPath, Configuration conf)
+            throws IOException
+    {
+        WARCFileWriter writer = writers.get(name);
+        if (writer == null) {
+            writer = new WARCFileWriter(conf, WARCFileWriter.getGzipCodec(conf),
+                    new Path(outputPath, name));
+            writers.put(name, writer);
+        }
+        return writer;
+    }
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        System.exit(ToolRunner.run(new LocalWARCExtractor(), args));
+    }
+}
@@ -20,30 +20,52 @@ package de.tudarmstadt.ukp.experiments.dip.hadoop;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
 import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 /**
- * Given a file with node IDs, it finds their original URLs (stored in the index)
+ * Given a file with node IDs, it finds their original URLs (stored in the index). By default
+ * only the URLs are written; with {@code -Dmapreduce.mapper.node_ids.join=true} the output
+ * lines are {@code nodeId<TAB>url} so they can be joined back to the IDs directly.
+ * <p/>
+ * If the ID file is small enough (see {@link #MAPREDUCE_JOB_NODE_IDS_MAX_CACHE_SIZE}), it is
+ * shipped to all mappers and loaded into memory; otherwise the URL table and the IDs are
+ * joined on the reduce side.
+ * <p/>
+ * The requested node IDs without any URL are listed in {@code outputPath/missing-node-ids.txt};
+ * the mappers write the IDs found into {@code outputPath/found-m-*} and they are compared with
+ * the ID file after the job, the reduce-side join writes the missing IDs directly into
+ * {@code outputPath/missing-r-*}.
  *
  * @author Ivan Habernal
  */
@@ -51,8 +73,26 @@ public class OriginalURLGrep
         extends Configured
         implements Tool
 {
+    /**
+     * If true, the output contains node IDs along with the URLs
+     */
+    public static final String MAPREDUCE_MAPPER_NODE_IDS_JOIN = "mapreduce.mapper.node_ids.join";
+
+    /**
+     * ID files larger than this (in bytes) are joined on the reduce side instead of being
+     * loaded into memory in every mapper
+     */
+    public static final String MAPREDUCE_JOB_NODE_IDS_MAX_CACHE_SIZE = "mapreduce.job.node_ids.max_cache_size";
+
+    private static final long DEFAULT_NODE_IDS_MAX_CACHE_SIZE = 256L * 1024 * 1024;
+
     private static final String NODE_IDS = "node_ids";
 
+    // named output with the IDs not found by the reduce-side join
+    static final String MISSING = "missing";
+
+    static final String MISSING_NODE_IDS_FILE = "missing-node-ids.txt";
+
     public static void main(String[] args)
             throws Exception
     {
@@ -69,20 +109,17 @@ public class OriginalURLGrep
 
         System.out.println("Other args: " + Arrays.toString(otherArgs));
 
-        Job job = Job.getInstance();
+        Job job = Job.getInstance(conf);
         job.setJarByClass(OriginalURLGrep.class);
 
         job.setJobName(OriginalURLGrep.class.getName());
-        job.setMapperClass(OrigURLGrepMapper.class);
         job.setOutputKeyClass(Text.class);
-        job.setOutputValueClass(NullWritable.class);
-
-        // cache file - IDs for index
-        String idFile = args[2];
-        System.err.println("idFile: " + idFile);
-        job.addCacheFile(new URI(idFile + "#" + NODE_IDS));
-
-        job.setInputFormatClass(TextInputFormat.class);
+        if (conf.getBoolean(MAPREDUCE_MAPPER_NODE_IDS_JOIN, false)) {
+            job.setOutputValueClass(Text.class);
+        }
+        else {
+            job.setOutputValueClass(NullWritable.class);
+        }
         job.setOutputFormatClass(TextOutputFormat.class);
 
         String commaSeparatedInputFiles = otherArgs[0];
@@ -90,29 +127,192 @@ public class OriginalURLGrep
         System.err.println("commaSeparatedInputFiles: " + commaSeparatedInputFiles);
         System.err.println("outputPath: " + outputPath);
 
-        FileInputFormat.addInputPaths(job, commaSeparatedInputFiles);
+        // IDs for index
+        String idFile = args[2];
+        System.err.println("idFile: " + idFile);
+
+        Path idFilePath = new Path(idFile);
+        FileSystem fs = idFilePath.getFileSystem(conf);
+        long idFileSize = fs.getFileStatus(idFilePath).getLen();
+        long maxCacheSize = conf.getLong(MAPREDUCE_JOB_NODE_IDS_MAX_CACHE_SIZE,
+                DEFAULT_NODE_IDS_MAX_CACHE_SIZE);
+
+        boolean reduceSideJoin = idFileSize > maxCacheSize;
+        if (!reduceSideJoin) {
+            System.err.println("Loading " + idFileSize + " bytes of IDs into the mappers");
+
+            // cache file - IDs for index
+            job.addCacheFile(new URI(idFile + "#" + NODE_IDS));
+            job.setMapperClass(OrigURLGrepMapper.class);
+            job.setInputFormatClass(TextInputFormat.class);
+
+            FileInputFormat.addInputPaths(job, commaSeparatedInputFiles);
+            MultipleOutputs.addNamedOutput(job, ClueWebTRECIdFileExtractor.FOUND,
+                    TextOutputFormat.class, Text.class, NullWritable.class);
+        }
+        else {
+            System.err.println("ID file has " + idFileSize + " bytes (more than " + maxCacheSize
+                    + "), using reduce-side join");
+
+            job.setMapOutputKeyClass(Text.class);
+            job.setMapOutputValueClass(Text.class);
+            job.setReducerClass(JoinReducer.class);
+
+            for (String inputFile : commaSeparatedInputFiles.split(",")) {
+                MultipleInputs.addInputPath(job, new Path(inputFile), TextInputFormat.class,
+                        URLTableJoinMapper.class);
+            }
+            MultipleInputs.addInputPath(job, idFilePath, TextInputFormat.class,
+                    NodeIdJoinMapper.class);
+            MultipleOutputs.addNamedOutput(job, MISSING, TextOutputFormat.class, Text.class,
+                    NullWritable.class);
+        }
+
         FileOutputFormat.setOutputPath(job, new Path(outputPath));
 
-        return job.waitForCompletion(true) ? 0 : 1;
+        if (!job.waitForCompletion(true)) {
+            return 1;
+        }
+
+        // report the node IDs without URLs
+        SortedSet<String> missing;
+        int requested;
+        if (reduceSideJoin) {
+            missing = ClueWebTRECIdFileExtractor.readNamedOutput(new Path(outputPath), MISSING,
+                    conf);
+            requested = (int) job.getCounters().findCounter(ExtractionCounter.REQUESTED_IDS)
+                    .getValue();
+        }
+        else {
+            missing = loadNodeIds(idFilePath, fs);
+            requested = missing.size();
+            missing.removeAll(ClueWebTRECIdFileExtractor.readNamedOutput(new Path(outputPath),
+                    ClueWebTRECIdFileExtractor.FOUND, conf));
+        }
+        ClueWebTRECIdFileExtractor.writeMissingIds(requested, missing,
+                new Path(outputPath, MISSING_NODE_IDS_FILE), conf);
+
+        return 0;
+    }
+
+    /**
+     * Loads the node IDs the same way as {@link OrigURLGrepMapper}, one per line
+     *
+     * @param idFilePath ID file
+     * @param fs         file system
+     * @return node IDs
+     * @throws IOException exception
+     */
+    private static SortedSet<String> loadNodeIds(Path idFilePath, FileSystem fs)
+            throws IOException
+    {
+        SortedSet<String> result = new TreeSet<>();
+
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(fs.open(idFilePath),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    result.add(line.trim());
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Skips whitespace in UTF-8 bytes
+     *
+     * @return index of the first non-whitespace byte or {@code to}
+     */
+    private static int skipWhitespace(byte[] bytes, int from, int to)
+    {
+        int i = from;
+        while (i < to && isWhitespace(bytes[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Skips a token in UTF-8 bytes
+     *
+     * @return index of the first whitespace byte or {@code to}
+     */
+    private static int skipToken(byte[] bytes, int from, int to)
+    {
+        int i = from;
+        while (i < to && !isWhitespace(bytes[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Same characters as {@code \s} in regular expressions
+     */
+    private static boolean isWhitespace(byte b)
+    {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    /**
+     * Splits a URL table line into the URL and node ID
+     *
+     * @param value  line
+     * @param url    output URL
+     * @param nodeId output node ID
+     * @throws IOException if the line has no node ID
+     */
+    private static void parseURLTableLine(Text value, Text url, Text nodeId)
+            throws IOException
+    {
+        // tokenize the raw UTF-8 bytes: url, whitespace, node ID
+        byte[] bytes = value.getBytes();
+        int length = value.getLength();
+
+        int urlStart = skipWhitespace(bytes, 0, length);
+        int urlEnd = skipToken(bytes, urlStart, length);
+        int nodeIdStart = skipWhitespace(bytes, urlEnd, length);
+        int nodeIdEnd = skipToken(bytes, nodeIdStart, length);
+
+        if (nodeIdStart == nodeIdEnd) {
+            throw new IOException("Malformed line: " + value);
+        }
+
+        url.set(bytes, urlStart, urlEnd - urlStart);
+        nodeId.set(bytes, nodeIdStart, nodeIdEnd - nodeIdStart);
     }
 
     public static class OrigURLGrepMapper
-            extends Mapper<LongWritable, Text, Text, NullWritable>
+            extends Mapper<LongWritable, Text, Text, Writable>
     {
         // a set of all IDs for whose we look for their original URLs
-        private Set<String> requiredNodeIds = new HashSet<String>();
+        private Set<Text> requiredNodeIds = new HashSet<Text>();
+
+        // reused for look-ups and output
+        private final Text nodeId = new Text();
+        private final Text url = new Text();
+
+        private MultipleOutputs<Text, Writable> multipleOutputs;
+
+        private boolean join;
 
         @Override
         protected void setup(Context context)
                 throws IOException, InterruptedException
         {
+            join = context.getConfiguration().getBoolean(MAPREDUCE_MAPPER_NODE_IDS_JOIN, false);
+            multipleOutputs = new MultipleOutputs<>(context);
+
             // load the file with IDs
             if (context.getCacheFiles() != null && context.getCacheFiles().length > 0) {
                 File ccNodesFile = new File("./" + NODE_IDS);
 
                 List<String> lines = FileUtils.readLines(ccNodesFile);
                 for (String line : lines) {
-                    requiredNodeIds.add(line.trim());
+                    requiredNodeIds.add(new Text(line.trim()));
                 }
             }
         }
@@ -121,17 +321,146 @@ public class OriginalURLGrep
         public void map(LongWritable key, Text value, Context context)
                 throws IOException, InterruptedException
         {
-            String line = value.toString();
+            context.getCounter(ExtractionCounter.RECORDS_SCANNED).increment(1);
+            context.getCounter(ExtractionCounter.BYTES_SCANNED).increment(value.getLength());
 
-            // split line
-            String[] split = line.split("\\s+");
-            String url = split[0];
-            String nodeId = split[1];
+            parseURLTableLine(value, url, nodeId);
 
             if (requiredNodeIds.contains(nodeId)) {
+                context.getCounter(ExtractionCounter.MATCHES).increment(1);
+
                 // then write the URL to the output
-                context.write(new Text(url), NullWritable.get());
+                if (join) {
+                    context.write(nodeId, url);
+                }
+                else {
+                    context.write(url, NullWritable.get());
+                }
+                multipleOutputs.write(ClueWebTRECIdFileExtractor.FOUND, nodeId,
+                        NullWritable.get());
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context)
+                throws IOException, InterruptedException
+        {
+            multipleOutputs.close();
+        }
+    }
+
+    /**
+     * Reduce-side join: emits (node ID, URL) for each line of the URL table
+     */
+    public static class URLTableJoinMapper
+            extends Mapper<LongWritable, Text, Text, Text>
+    {
+        private final Text nodeId = new Text();
+        private final Text url = new Text();
+
+        @Override
+        public void map(LongWritable key, Text value, Context context)
+                throws IOException, InterruptedException
+        {
+            context.getCounter(ExtractionCounter.RECORDS_SCANNED).increment(1);
+            context.getCounter(ExtractionCounter.BYTES_SCANNED).increment(value.getLength());
+
+            parseURLTableLine(value, url, nodeId);
+            context.write(nodeId, url);
+        }
+    }
+
+    /**
+     * Reduce-side join: emits (node ID, empty value) for each required ID; URLs are never
+     * empty so the empty value marks the ID as required
+     */
+    public static class NodeIdJoinMapper
+            extends Mapper<LongWritable, Text, Text, Text>
+    {
+        private final Text nodeId = new Text();
+        private final Text empty = new Text();
+
+        @Override
+        public void map(LongWritable key, Text value, Context context)
+                throws IOException, InterruptedException
+        {
+            byte[] bytes = value.getBytes();
+            int start = skipWhitespace(bytes, 0, value.getLength());
+            int end = skipToken(bytes, start, value.getLength());
+
+            if (start < end) {
+                nodeId.set(bytes, start, end - start);
+                context.write(nodeId, empty);
             }
         }
     }
+
+    /**
+     * Reduce-side join: writes the URLs of the node IDs that have been marked as required and
+     * the required node IDs without any URL into the {@link #MISSING} named output
+     */
+    public static class JoinReducer
+            extends Reducer<Text, Text, Text, Writable>
+    {
+        // buffered URLs of the current node ID, reused across keys
+        private final List<Text> urls = new ArrayList<Text>();
+
+        private MultipleOutputs<Text, Writable> multipleOutputs;
+
+        private boolean join;
+
+        @Override
+        protected void setup(Context context)
+                throws IOException, InterruptedException
+        {
+            join = context.getConfiguration().getBoolean(MAPREDUCE_MAPPER_NODE_IDS_JOIN, false);
+            multipleOutputs = new MultipleOutputs<>(context);
+        }
+
+        @Override
+        protected void reduce(Text key, Iterable<Text> values, Context context)
+                throws IOException, InterruptedException
+        {
+            boolean required = false;
+            int urlCount = 0;
+
+            for (Text value : values) {
+                if (value.getLength() == 0) {
+                    required = true;
+                }
+                else {
+                    // the framework reuses the value instance
+                    if (urlCount == urls.size()) {
+                        urls.add(new Text());
+                    }
+                    urls.get(urlCount++).set(value);
+                }
+            }
+
+            if (required) {
+                context.getCounter(ExtractionCounter.REQUESTED_IDS).increment(1);
+                context.getCounter(ExtractionCounter.MATCHES).increment(urlCount);
+
+                if (urlCount == 0) {
+                    multipleOutputs.write(MISSING, key, NullWritable.get());
+                }
+
+                for (int i = 0; i < urlCount; i++) {
+                    if (join) {
+                        context.write(key, urls.get(i));
+                    }
+                    else {
+                        context.write(urls.get(i), NullWritable.get());
+                    }
+                }
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context)
+                throws IOException, InterruptedException
+        {
+            multipleOutputs.close();
+        }
+    }
 }
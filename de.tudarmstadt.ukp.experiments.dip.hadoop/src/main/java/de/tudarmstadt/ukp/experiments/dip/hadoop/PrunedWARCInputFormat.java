@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import com.martinkl.warc.mapreduce.WARCInputFormat;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * WARC input format that schedules only those input files which can contain the requested
+ * TREC IDs. ClueWeb IDs encode the WARC file they come from:
+ * <pre>
+ * clueweb12-0710wb-90-29809  -&gt;  .../0710wb/0710wb-90.warc.gz
+ * clueweb09-en0000-00-00000  -&gt;  .../en0000/00.warc.gz
+ * </pre>
+ * so the input listing is reduced to the files whose name (ClueWeb12) or parent directory and
+ * name (ClueWeb09) matches one of the IDs. If any of the requested IDs does not follow the
+ * ClueWeb pattern, no pruning is done and all input files are scanned.
+ *
+ * @author Ivan Habernal
+ */
+public class PrunedWARCInputFormat
+        extends WARCInputFormat
+{
+    public static final String MAPREDUCE_INPUT_WARC_FILES = "mapreduce.input.trec_ids.warc_files";
+
+    private static final Pattern CLUEWEB_ID = Pattern
+            .compile("^clueweb(?:09|12)-(\\w+-\\d+)-\\d+$");
+
+    private static final String WARC_GZ_SUFFIX = ".warc.gz";
+
+    /**
+     * Restricts the job input to the WARC files that may contain the given IDs
+     *
+     * @param job     job
+     * @param trecIds requested IDs
+     * @return false if the IDs cannot be mapped to files and the full input will be scanned
+     */
+    public static boolean setRequiredTrecIds(Job job, Collection<String> trecIds)
+    {
+        Set<String> fileKeys = getRequiredWarcFileKeys(trecIds);
+        if (fileKeys == null) {
+            job.getConfiguration().unset(MAPREDUCE_INPUT_WARC_FILES);
+            return false;
+        }
+
+        job.getConfiguration()
+                .setStrings(MAPREDUCE_INPUT_WARC_FILES, fileKeys.toArray(new String[fileKeys.size()]));
+        return true;
+    }
+
+    /**
+     * Returns the keys of the WARC files that may contain the given IDs
+     *
+     * @param trecIds requested IDs
+     * @return keys or null if any of the IDs is not a ClueWeb ID
+     */
+    static Set<String> getRequiredWarcFileKeys(Collection<String> trecIds)
+    {
+        Set<String> fileKeys = new TreeSet<>();
+        for (String trecId : trecIds) {
+            String key = getWarcFileKey(trecId);
+            if (key == null) {
+                System.err.println("Cannot derive WARC file from " + trecId
+                        + ", scanning all input files");
+                return null;
+            }
+            fileKeys.add(key);
+        }
+        return fileKeys;
+    }
+
+    /**
+     * Returns true if one of the keys of the WARC file path is required
+     *
+     * @param path         path
+     * @param requiredKeys keys
+     * @return boolean
+     */
+    static boolean isRequired(Path path, Set<String> requiredKeys)
+    {
+        for (String key : getWarcFileKeys(path)) {
+            if (requiredKeys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the WARC file key for a ClueWeb ID, i.e. {@code 0710wb-90} for
+     * {@code clueweb12-0710wb-90-29809}, or null if the ID is not a ClueWeb ID
+     *
+     * @param trecId ID
+     * @return key or null
+     */
+    static String getWarcFileKey(String trecId)
+    {
+        Matcher matcher = CLUEWEB_ID.matcher(trecId);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Returns the possible file keys of a WARC file path: the name without the extension
+     * (ClueWeb12 layout) and the parent directory joined with the name (ClueWeb09 layout)
+     *
+     * @param path path
+     * @return keys (empty if the path is not a .warc.gz file)
+     */
+    static List<String> getWarcFileKeys(Path path)
+    {
+        String name = path.getName();
+        if (!name.endsWith(WARC_GZ_SUFFIX)) {
+            return new ArrayList<>();
+        }
+
+        String baseName = name.substring(0, name.length() - WARC_GZ_SUFFIX.length());
+        List<String> result = new ArrayList<>(2);
+        result.add(baseName);
+
+        Path parent = path.getParent();
+        if (parent != null && !parent.getName().isEmpty()) {
+            result.add(parent.getName() + "-" + baseName);
+        }
+
+        return result;
+    }
+
+    @Override
+    protected List<FileStatus> listStatus(JobContext job)
+            throws IOException
+    {
+        List<FileStatus> all = super.listStatus(job);
+
+        String[] keys = job.getConfiguration().getStrings(MAPREDUCE_INPUT_WARC_FILES);
+        if (keys == null) {
+            return all;
+        }
+
+        Set<String> required = new HashSet<>(Arrays.asList(keys));
+
+        List<FileStatus> result = new ArrayList<>();
+        for (FileStatus status : all) {
+            if (isRequired(status.getPath(), required)) {
+                result.add(status);
+            }
+        }
+
+        System.out.println("Scheduling " + result.size() + " out of " + all.size()
+                + " input WARC files");
+
+        return result;
+    }
+}
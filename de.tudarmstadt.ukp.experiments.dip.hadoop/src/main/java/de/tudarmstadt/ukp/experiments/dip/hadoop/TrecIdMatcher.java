@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import com.martinkl.warc.WARCRecord;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Decides whether a WARC record is one of the requested documents and passes the
+ * {@link WARCRecordFilter}; shared by {@link ClueWebTRECIdFileExtractor.MapperClass} and
+ * {@link LocalWARCExtractor}. Not thread-safe (keeps the last match), but the underlying table
+ * can be shared.
+ *
+ * @author Ivan Habernal
+ */
+public class TrecIdMatcher
+{
+    /**
+     * Result of {@link #match(WARCRecord)}
+     */
+    public enum Outcome
+    {
+        SKIPPED_NON_RESPONSE(ExtractionCounter.SKIPPED_NON_RESPONSE),
+        NOT_MATCHED(null),
+        SKIPPED_NON_HTML(ExtractionCounter.SKIPPED_NON_HTML),
+        SKIPPED_TOO_LONG(ExtractionCounter.SKIPPED_TOO_LONG),
+        MATCHED(ExtractionCounter.MATCHES);
+
+        private final ExtractionCounter counter;
+
+        Outcome(ExtractionCounter counter)
+        {
+            this.counter = counter;
+        }
+
+        /**
+         * Returns the counter to be incremented, or null
+         *
+         * @return counter
+         */
+        public ExtractionCounter getCounter()
+        {
+            return counter;
+        }
+    }
+
+    private final TrecIdTable ids;
+    private final WARCRecordFilter filter;
+
+    private String trecId;
+    private int index = -1;
+    private WARCRecord record;
+    private boolean truncated;
+
+    /**
+     * Matcher accepting all {@code response} records with one of the IDs
+     *
+     * @param ids IDs
+     */
+    public TrecIdMatcher(TrecIdTable ids)
+    {
+        this(ids, new WARCRecordFilter());
+    }
+
+    public TrecIdMatcher(TrecIdTable ids, WARCRecordFilter filter)
+    {
+        this.ids = ids;
+        this.filter = filter;
+    }
+
+    /**
+     * Matches the record against the table and the filters
+     *
+     * @param record record
+     * @return outcome
+     * @throws IOException if the record cannot be truncated
+     */
+    public Outcome match(WARCRecord record)
+            throws IOException
+    {
+        this.trecId = null;
+        this.index = -1;
+        this.record = null;
+        this.truncated = false;
+
+        // only response records have TREC IDs (skips warcinfo etc.)
+        if (!filter.acceptsWarcType(record)) {
+            return Outcome.SKIPPED_NON_RESPONSE;
+        }
+
+        trecId = record.getHeader().getField("WARC-TREC-ID");
+        index = ids.indexOf(trecId);
+
+        if (index < 0) {
+            return Outcome.NOT_MATCHED;
+        }
+
+        // the remaining filters only for the (few) matching records
+        if (!filter.acceptsContentType(record)) {
+            return Outcome.SKIPPED_NON_HTML;
+        }
+
+        if (filter.isTooLong(record)) {
+            if (!filter.isTruncate()) {
+                return Outcome.SKIPPED_TOO_LONG;
+            }
+            record = filter.truncate(record);
+            truncated = true;
+        }
+
+        this.record = record;
+        return Outcome.MATCHED;
+    }
+
+    /**
+     * Returns the last matched record to be written (truncated if necessary)
+     *
+     * @return record
+     */
+    public WARCRecord getRecord()
+    {
+        return record;
+    }
+
+    /**
+     * Returns true if the last matched record has been truncated
+     *
+     * @return boolean
+     */
+    public boolean isTruncated()
+    {
+        return truncated;
+    }
+
+    /**
+     * Returns the TREC ID of the last matched record
+     *
+     * @return ID
+     */
+    public String getTrecId()
+    {
+        return trecId;
+    }
+
+    /**
+     * Returns true if the table stores queries of the IDs
+     *
+     * @return boolean
+     */
+    public boolean hasQueries()
+    {
+        return ids.hasQueries();
+    }
+
+    /**
+     * Returns the queries of the last matched record
+     *
+     * @return query IDs
+     */
+    public List<String> getQueries()
+    {
+        return ids.getQueries(index);
+    }
+}
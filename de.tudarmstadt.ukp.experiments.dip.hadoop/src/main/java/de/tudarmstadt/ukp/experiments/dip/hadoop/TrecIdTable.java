@@ -0,0 +1,486 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import de.tudarmstadt.ukp.experiments.dip.common.ClueWebIdCodec;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Read-only table of TREC IDs in a compact binary form that can be memory-mapped by the
+ * mappers. The IDs are ASCII-encoded, sorted, and padded to a fixed width so a lookup is a
+ * binary search directly over the mapped bytes; an optional Bloom filter in front of the table
+ * rejects most of the non-matching IDs with a few bit probes. Lookups do not allocate.
+ * <p/>
+ * If all IDs are ClueWeb IDs, they are stored as sorted {@link ClueWebIdCodec} codes (8 bytes
+ * per ID) instead, so the binary search compares primitive {@code long}s read from the mapped
+ * buffer; the code order is the same as the ID order, so the indices do not change.
+ * <p/>
+ * Optionally, each ID carries the list of queries it was retrieved for; the query IDs are
+ * stored once in a sorted dictionary and referenced from per-ID postings.
+ * <p/>
+ * File layout (big endian):
+ * <pre>
+ * int magic, int version, int count, int width, int bloomWords, int bloomHashes,
+ * int queryCount, int queryWidth, int codes, int padding
+ * long[bloomWords] bloom filter bits
+ * (if codes == 1:) long[count] sorted ClueWeb ID codes
+ * (if codes == 0:) byte[count * width] sorted, zero-padded IDs
+ * (only if queryCount &gt; 0:)
+ * byte[queryCount * queryWidth] sorted, zero-padded query IDs
+ * int[count + 1] start of the postings of each ID
+ * int[] postings (indices into the query dictionary)
+ * </pre>
+ *
+ * @author Ivan Habernal
+ */
+public class TrecIdTable
+{
+    private static final int MAGIC = 0x54524944;
+    private static final int VERSION = 3;
+    // even number of ints, so the longs that follow stay 8-byte aligned
+    private static final int HEADER_SIZE = 10 * 4;
+
+    static final int BLOOM_BITS_PER_ID = 10;
+    static final int BLOOM_HASHES = 7;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int width;
+    private final int bloomWords;
+    private final int bloomHashes;
+    private final int idsOffset;
+    private final int queryCount;
+    private final int queryWidth;
+    private final int queriesOffset;
+    private final int postingsIndexOffset;
+    private final int postingsOffset;
+
+    // IDs stored as ClueWeb ID codes instead of padded bytes
+    private final boolean codes;
+
+    private TrecIdTable(ByteBuffer buffer)
+            throws IOException
+    {
+        this.buffer = buffer;
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a TREC ID table (or unsupported version)");
+        }
+
+        this.size = buffer.getInt(8);
+        this.width = buffer.getInt(12);
+        this.bloomWords = buffer.getInt(16);
+        this.bloomHashes = buffer.getInt(20);
+        this.queryCount = buffer.getInt(24);
+        this.queryWidth = buffer.getInt(28);
+        this.codes = buffer.getInt(32) != 0;
+        this.idsOffset = HEADER_SIZE + bloomWords * 8;
+        this.queriesOffset = idsOffset + size * (codes ? 8 : width);
+        this.postingsIndexOffset = queriesOffset + queryCount * queryWidth;
+        this.postingsOffset = postingsIndexOffset + (queryCount > 0 ? (size + 1) * 4 : 0);
+
+        if (buffer.limit() < postingsOffset) {
+            throw new IOException("Truncated TREC ID table");
+        }
+        if (queryCount > 0 && buffer.limit() < postingsOffset + 4L * buffer.getInt(
+                postingsIndexOffset + size * 4)) {
+            throw new IOException("Truncated TREC ID table");
+        }
+    }
+
+    /**
+     * Memory-maps the given table file
+     *
+     * @param file file written by {@link #write(Collection, boolean, DataOutput)}
+     * @return table
+     * @throws IOException if the file cannot be read or is not a table
+     */
+    public static TrecIdTable map(File file)
+            throws IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            // the mapping stays valid after the channel is closed
+            return new TrecIdTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Wraps a buffer containing the table
+     *
+     * @param buffer buffer
+     * @return table
+     * @throws IOException if the buffer does not contain a table
+     */
+    public static TrecIdTable wrap(ByteBuffer buffer)
+            throws IOException
+    {
+        return new TrecIdTable(buffer);
+    }
+
+    /**
+     * Writes the table; duplicate IDs are stored only once.
+     *
+     * @param ids   IDs (ASCII only)
+     * @param bloom whether a Bloom filter should be prepended
+     * @param out   output
+     * @throws IOException              exception
+     * @throws IllegalArgumentException if an ID is empty or contains non-ASCII characters
+     */
+    public static void write(Collection<String> ids, boolean bloom, DataOutput out)
+            throws IOException
+    {
+        SortedMap<String, Collection<String>> withoutQueries = new TreeMap<>();
+        for (String id : ids) {
+            withoutQueries.put(id, Collections.<String>emptySet());
+        }
+        write(withoutQueries, bloom, out);
+    }
+
+    /**
+     * Writes the table with the queries of each ID
+     *
+     * @param idsToQueries IDs (ASCII only) and the IDs of the queries they belong to (ASCII
+     *                     only, may be empty)
+     * @param bloom        whether a Bloom filter should be prepended
+     * @param out          output
+     * @throws IOException              exception
+     * @throws IllegalArgumentException if an ID is empty or contains non-ASCII characters
+     */
+    public static void write(Map<String, ? extends Collection<String>> idsToQueries, boolean bloom,
+            DataOutput out)
+            throws IOException
+    {
+        SortedMap<String, ? extends Collection<String>> sortedMap = new TreeMap<>(idsToQueries);
+        SortedSet<String> sorted = new TreeSet<>(sortedMap.keySet());
+        int width = maxWidth(sorted);
+
+        // query dictionary
+        SortedSet<String> queries = new TreeSet<>();
+        for (Collection<String> idQueries : sortedMap.values()) {
+            queries.addAll(idQueries);
+        }
+        int queryWidth = maxWidth(queries);
+        List<String> queryList = new ArrayList<>(queries);
+
+        long[] codes = encodeAll(sorted);
+
+        long[] bloomBits = new long[0];
+        if (bloom && !sorted.isEmpty()) {
+            bloomBits = new long[(int) ((sorted.size() * (long) BLOOM_BITS_PER_ID + 63) / 64)];
+            for (String id : sorted) {
+                long hash = hash(id);
+                long bits = bloomBits.length * 64L;
+                for (int i = 0; i < BLOOM_HASHES; i++) {
+                    long bit = bloomBit(hash, i, bits);
+                    bloomBits[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sorted.size());
+        out.writeInt(width);
+        out.writeInt(bloomBits.length);
+        out.writeInt(BLOOM_HASHES);
+        out.writeInt(queryList.size());
+        out.writeInt(queryWidth);
+        out.writeInt(codes != null ? 1 : 0);
+        out.writeInt(0);
+
+        for (long word : bloomBits) {
+            out.writeLong(word);
+        }
+
+        if (codes != null) {
+            for (long code : codes) {
+                out.writeLong(code);
+            }
+        }
+        else {
+            for (String id : sorted) {
+                writePadded(id, width, out);
+            }
+        }
+
+        if (!queryList.isEmpty()) {
+            for (String query : queryList) {
+                writePadded(query, queryWidth, out);
+            }
+
+            int start = 0;
+            for (String id : sorted) {
+                out.writeInt(start);
+                start += new TreeSet<>(sortedMap.get(id)).size();
+            }
+            out.writeInt(start);
+
+            for (String id : sorted) {
+                for (String query : new TreeSet<>(sortedMap.get(id))) {
+                    out.writeInt(Collections.binarySearch(queryList, query));
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes the sorted IDs; returns null if any of them is not a ClueWeb ID (or, which
+     * should not happen, if the codes are not in the same order as the IDs)
+     */
+    private static long[] encodeAll(SortedSet<String> sorted)
+    {
+        long[] result = new long[sorted.size()];
+        int i = 0;
+        for (String id : sorted) {
+            result[i] = ClueWebIdCodec.encode(id);
+            if (result[i] == ClueWebIdCodec.INVALID || (i > 0 && result[i] <= result[i - 1])) {
+                return null;
+            }
+            i++;
+        }
+        return result;
+    }
+
+    private static int maxWidth(SortedSet<String> ids)
+    {
+        int width = 0;
+        for (String id : ids) {
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("Empty TREC ID");
+            }
+            for (int i = 0; i < id.length(); i++) {
+                char c = id.charAt(i);
+                if (c == 0 || c > 127) {
+                    throw new IllegalArgumentException("Non-ASCII TREC ID: " + id);
+                }
+            }
+            width = Math.max(width, id.length());
+        }
+        return width;
+    }
+
+    private static void writePadded(String id, int width, DataOutput out)
+            throws IOException
+    {
+        out.writeBytes(id);
+        for (int i = id.length(); i < width; i++) {
+            out.writeByte(0);
+        }
+    }
+
+    /**
+     * Returns the number of IDs in the table
+     *
+     * @return size
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns true if the table contains the given ID
+     *
+     * @param id ID, may be null
+     * @return boolean
+     */
+    public boolean contains(CharSequence id)
+    {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Returns the position of the ID in the sorted table, or -1 if it is not present
+     *
+     * @param id ID, may be null
+     * @return index or -1
+     */
+    public int indexOf(CharSequence id)
+    {
+        if (id == null || id.length() == 0 || id.length() > width) {
+            return -1;
+        }
+
+        if (bloomWords > 0 && !mightContain(id)) {
+            return -1;
+        }
+
+        long code = 0;
+        if (codes) {
+            code = ClueWebIdCodec.encode(id);
+            if (code == ClueWebIdCodec.INVALID) {
+                return -1;
+            }
+        }
+
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = codes ?
+                    Long.compare(buffer.getLong(idsOffset + mid * 8), code) :
+                    compareAt(mid, id);
+            if (cmp < 0) {
+                low = mid + 1;
+            }
+            else if (cmp > 0) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the ID stored at the given position (allocates; meant for reporting only)
+     *
+     * @param index index
+     * @return ID
+     */
+    public String get(int index)
+    {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+
+        if (codes) {
+            return ClueWebIdCodec.decode(buffer.getLong(idsOffset + index * 8));
+        }
+        return readPadded(idsOffset + index * width, width);
+    }
+
+    /**
+     * Returns true if the table stores queries of the IDs
+     *
+     * @return boolean
+     */
+    public boolean hasQueries()
+    {
+        return queryCount > 0;
+    }
+
+    /**
+     * Returns the IDs of the queries the ID at the given position belongs to (allocates)
+     *
+     * @param index index
+     * @return query IDs, sorted; empty if the table has no queries
+     */
+    public List<String> getQueries(int index)
+    {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+
+        if (queryCount == 0) {
+            return Collections.emptyList();
+        }
+
+        int start = buffer.getInt(postingsIndexOffset + index * 4);
+        int end = buffer.getInt(postingsIndexOffset + (index + 1) * 4);
+
+        List<String> result = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            int query = buffer.getInt(postingsOffset + i * 4);
+            result.add(readPadded(queriesOffset + query * queryWidth, queryWidth));
+        }
+        return result;
+    }
+
+    private String readPadded(int offset, int width)
+    {
+        StringBuilder sb = new StringBuilder(width);
+        for (int i = 0; i < width; i++) {
+            byte b = buffer.get(offset + i);
+            if (b == 0) {
+                break;
+            }
+            sb.append((char) b);
+        }
+        return sb.toString();
+    }
+
+    private boolean mightContain(CharSequence id)
+    {
+        long hash = hash(id);
+        long bits = bloomWords * 64L;
+        for (int i = 0; i < bloomHashes; i++) {
+            long bit = bloomBit(hash, i, bits);
+            long word = buffer.getLong(HEADER_SIZE + (int) (bit >>> 6) * 8);
+            if ((word & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int compareAt(int index, CharSequence id)
+    {
+        int offset = idsOffset + index * width;
+        int length = id.length();
+        for (int i = 0; i < width; i++) {
+            int stored = buffer.get(offset + i) & 0xff;
+            int c = i < length ? id.charAt(i) : 0;
+            if (stored != c) {
+                return stored - c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters of the ID
+     */
+    static long hash(CharSequence id)
+    {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Double hashing; the i-th bit position derived from both halves of the 64-bit hash
+     */
+    private static long bloomBit(long hash, int i, long bits)
+    {
+        long combined = (hash >>> 32) + i * (hash & 0xffffffffL);
+        return (combined & Long.MAX_VALUE) % bits;
+    }
+}
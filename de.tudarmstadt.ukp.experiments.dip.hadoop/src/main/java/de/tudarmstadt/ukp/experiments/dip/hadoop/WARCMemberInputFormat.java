@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import com.martinkl.warc.WARCRecord;
+import com.martinkl.warc.WARCWritable;
+import de.tudarmstadt.ukp.experiments.dip.common.GzipMemberReader;
+import de.tudarmstadt.ukp.experiments.dip.common.WARCRecordParser;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Reads .warc.gz files like {@link com.martinkl.warc.mapreduce.WARCInputFormat} but the key
+ * is the compressed offset of the gzip member the record starts in (instead of the record
+ * number), so it can be used for building a random-access index. A member that ends inside a
+ * record (a truncated file) is reported and counted as
+ * {@link ExtractionCounter#TRUNCATED_MEMBERS}, and the rest of the file is skipped.
+ *
+ * @author Ivan Habernal
+ */
+public class WARCMemberInputFormat
+        extends FileInputFormat<LongWritable, WARCWritable>
+{
+    @Override
+    public RecordReader<LongWritable, WARCWritable> createRecordReader(InputSplit split,
+            TaskAttemptContext context)
+            throws IOException, InterruptedException
+    {
+        return new WARCMemberRecordReader();
+    }
+
+    @Override
+    protected boolean isSplitable(JobContext context, Path filename)
+    {
+        return false;
+    }
+
+    /**
+     * Iterates over records of a single gzip-compressed WARC file
+     */
+    public static class WARCMemberRecordReader
+            extends RecordReader<LongWritable, WARCWritable>
+    {
+        private final LongWritable key = new LongWritable();
+        private final WARCWritable value = new WARCWritable();
+
+        private Path path;
+        private GzipMemberReader reader;
+        private DataInputStream memberInput;
+        private long fileLength;
+        private TaskAttemptContext context;
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context)
+                throws IOException, InterruptedException
+        {
+            path = ((FileSplit) split).getPath();
+            FileSystem fs = path.getFileSystem(context.getConfiguration());
+            fileLength = fs.getFileStatus(path).getLen();
+            reader = new GzipMemberReader(fs.open(path), 0);
+            this.context = context;
+        }
+
+        @Override
+        public boolean nextKeyValue()
+                throws IOException, InterruptedException
+        {
+            while (true) {
+                if (memberInput == null) {
+                    if (!reader.nextMember()) {
+                        return false;
+                    }
+                    memberInput = new DataInputStream(
+                            new BufferedInputStream(reader.getMemberStream()));
+                }
+
+                WARCRecord record;
+                try {
+                    // a member usually holds exactly one record, but whole-file gzip works too
+                    record = WARCRecordParser.readRecord(memberInput);
+                }
+                catch (EOFException e) {
+                    // nothing after a truncated member can be read
+                    System.err.println("Truncated gzip member at offset "
+                            + reader.getMemberOffset() + " in " + path + ": " + e.getMessage());
+                    context.getCounter(ExtractionCounter.TRUNCATED_MEMBERS).increment(1);
+                    return false;
+                }
+
+                if (record == null) {
+                    // end of the member
+                    memberInput = null;
+                }
+                else {
+                    value.setRecord(record);
+                    key.set(reader.getMemberOffset());
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public LongWritable getCurrentKey()
+        {
+            return key;
+        }
+
+        @Override
+        public WARCWritable getCurrentValue()
+        {
+            return value;
+        }
+
+        @Override
+        public float getProgress()
+                throws IOException
+        {
+            return fileLength == 0 ? 1.0f : Math.min(1.0f, reader.getPosition() / (float) fileLength);
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+    }
+}
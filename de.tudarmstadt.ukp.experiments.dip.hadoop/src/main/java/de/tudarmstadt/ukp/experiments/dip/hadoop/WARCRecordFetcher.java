@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import com.martinkl.warc.WARCFileWriter;
+import com.martinkl.warc.WARCRecord;
+import de.tudarmstadt.ukp.experiments.dip.common.ClueWebMapFileReader;
+import de.tudarmstadt.ukp.experiments.dip.common.GzipMemberReader;
+import de.tudarmstadt.ukp.experiments.dip.common.WARCRecordParser;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipException;
+
+/**
+ * Fetches individual WARC records using the index created by {@link ClueWebTRECIdIndexer}
+ * instead of scanning the collection. Takes the index directory, the file with retrieved
+ * results (same format as for {@link ClueWebTRECIdFileExtractor}) and the output directory;
+ * the records are written into a single .warc.gz file. Runs on the client, no job is
+ * submitted. Only the gzip member at the indexed offset is read for each ID; an ID that is
+ * not there (the index is older than the file) is reported as missing.
+ * <p/>
+ * For instance:
+ * <pre>
+ *     hadoop jar de.tudarmstadt.ukp.experiments.dip.hadoop-0.2-SNAPSHOT.jar \
+ *     de.tudarmstadt.ukp.experiments.dip.hadoop.WARCRecordFetcher \
+ *     /user/habernal/ClueWeb12-trec-id-index ltr-50queries-100docs.txt \
+ *     /user/habernal/ltr-50queries-100docs-clueweb-export
+ * </pre>
+ *
+ * @author Ivan Habernal
+ */
+public class WARCRecordFetcher
+        extends Configured
+        implements Tool
+{
+    @Override
+    public int run(String[] args)
+            throws Exception
+    {
+        Configuration conf = getConf();
+
+        Path indexPath = new Path(args[0]);
+        SortedSet<String> trecIds = ClueWebTRECIdFileExtractor.loadTrecIds(args[1]);
+        Path outputPath = new Path(args[2]);
+
+        // look up the locations; file -> member offset -> IDs
+        SortedMap<String, SortedMap<Long, Set<String>>> locations = new TreeMap<>();
+        SortedSet<String> missing = new TreeSet<>();
+
+        try (ClueWebMapFileReader index = new ClueWebMapFileReader(indexPath, conf)) {
+            WARCRecordLocation location = new WARCRecordLocation();
+
+            for (String trecId : trecIds) {
+                if (!index.get(trecId, location)) {
+                    missing.add(trecId);
+                }
+                else {
+                    if (!locations.containsKey(location.getFile())) {
+                        locations.put(location.getFile(), new TreeMap<>());
+                    }
+                    SortedMap<Long, Set<String>> offsets = locations.get(location.getFile());
+                    if (!offsets.containsKey(location.getOffset())) {
+                        offsets.put(location.getOffset(), new TreeSet<>());
+                    }
+                    offsets.get(location.getOffset()).add(trecId);
+                }
+            }
+        }
+
+        // fetch the records file by file, in offset order
+        int fetched = 0;
+        WARCFileWriter writer = new WARCFileWriter(conf, WARCFileWriter.getGzipCodec(conf),
+                new Path(outputPath, "part-fetched"));
+        try {
+            for (Map.Entry<String, SortedMap<Long, Set<String>>> entry : locations.entrySet()) {
+                Path file = new Path(entry.getKey());
+                FileSystem fs = file.getFileSystem(conf);
+
+                try (GzipMemberReader reader = new GzipMemberReader(fs.open(file), 0)) {
+                    for (Map.Entry<Long, Set<String>> offset : entry.getValue().entrySet()) {
+                        try {
+                            fetched += fetch(reader, offset.getKey(), offset.getValue(), writer);
+                        }
+                        catch (ZipException e) {
+                            // the offset is not a member boundary (any more)
+                            System.err.println(file + ": " + e.getMessage());
+                        }
+
+                        if (!offset.getValue().isEmpty()) {
+                            System.err.println("Stale index: member at offset " + offset.getKey()
+                                    + " in " + file + " does not hold " + offset.getValue());
+                            missing.addAll(offset.getValue());
+                        }
+                    }
+                }
+            }
+        }
+        finally {
+            writer.close();
+        }
+
+        System.out.println("Fetched " + fetched + " out of " + trecIds.size() + " records");
+        for (String trecId : missing) {
+            System.err.println("Missing record\t" + trecId);
+        }
+
+        return missing.isEmpty() ? 0 : 1;
+    }
+
+    /**
+     * Reads the records of the gzip member at the offset (usually a single one) until all
+     * requested IDs are found; found IDs are removed from the set, so the IDs left in it are
+     * not in the member
+     *
+     * @param reader  reader
+     * @param offset  member offset
+     * @param trecIds requested IDs
+     * @param writer  output
+     * @return number of records written
+     * @throws IOException exception
+     */
+    static int fetch(GzipMemberReader reader, long offset, Set<String> trecIds,
+            WARCFileWriter writer)
+            throws IOException
+    {
+        int result = 0;
+
+        reader.seek(offset);
+        if (!reader.nextMember()) {
+            // offset beyond the end of the file
+            return result;
+        }
+
+        DataInputStream input = new DataInputStream(
+                new BufferedInputStream(reader.getMemberStream()));
+
+        WARCRecord record;
+        while (!trecIds.isEmpty() && (record = WARCRecordParser.readRecord(input)) != null) {
+            if (trecIds.remove(record.getHeader().getField("WARC-TREC-ID"))) {
+                writer.write(record);
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        System.exit(ToolRunner.run(new WARCRecordFetcher(), args));
+    }
+}
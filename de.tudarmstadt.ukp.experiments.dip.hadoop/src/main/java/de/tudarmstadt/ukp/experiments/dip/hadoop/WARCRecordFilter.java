@@ -0,0 +1,261 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import com.martinkl.warc.WARCRecord;
+import org.apache.hadoop.conf.Configuration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Configurable filters applied to the WARC records before they are written:
+ * <ul>
+ * <li>{@code mapreduce.mapper.filter.warc_types} - accepted {@code WARC-Type}s (comma
+ * separated, {@code response} by default)</li>
+ * <li>{@code mapreduce.mapper.filter.html_only} - only records with an HTML content type in the
+ * HTTP header (records without a Content-Type header are kept); false by default</li>
+ * <li>{@code mapreduce.mapper.filter.max_length} - maximum content length in bytes; unlimited
+ * by default</li>
+ * <li>{@code mapreduce.mapper.filter.truncate} - longer records are truncated to the maximum
+ * length instead of being dropped; false by default</li>
+ * </ul>
+ *
+ * @author Ivan Habernal
+ */
+public class WARCRecordFilter
+{
+    public static final String MAPREDUCE_MAPPER_FILTER_WARC_TYPES = "mapreduce.mapper.filter.warc_types";
+    public static final String MAPREDUCE_MAPPER_FILTER_HTML_ONLY = "mapreduce.mapper.filter.html_only";
+    public static final String MAPREDUCE_MAPPER_FILTER_MAX_LENGTH = "mapreduce.mapper.filter.max_length";
+    public static final String MAPREDUCE_MAPPER_FILTER_TRUNCATE = "mapreduce.mapper.filter.truncate";
+
+    private static final Pattern CONTENT_LENGTH = Pattern
+            .compile("^Content-Length:.*$", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+
+    private static final byte[] CONTENT_TYPE = "content-type:".getBytes(StandardCharsets.US_ASCII);
+
+    // only the beginning of the content is searched for the HTTP header
+    private static final int MAX_HTTP_HEADER_LENGTH = 64 * 1024;
+
+    private final Set<String> warcTypes;
+    private final boolean htmlOnly;
+    private final long maxLength;
+    private final boolean truncate;
+
+    /**
+     * Filter accepting all {@code response} records
+     */
+    public WARCRecordFilter()
+    {
+        this(new Configuration(false));
+    }
+
+    public WARCRecordFilter(Configuration conf)
+    {
+        this.warcTypes = new HashSet<>(Arrays.asList(
+                conf.getTrimmedStrings(MAPREDUCE_MAPPER_FILTER_WARC_TYPES, "response")));
+        this.htmlOnly = conf.getBoolean(MAPREDUCE_MAPPER_FILTER_HTML_ONLY, false);
+        this.maxLength = conf.getLong(MAPREDUCE_MAPPER_FILTER_MAX_LENGTH, -1);
+        this.truncate = conf.getBoolean(MAPREDUCE_MAPPER_FILTER_TRUNCATE, false);
+    }
+
+    /**
+     * Returns true if the record has one of the accepted WARC types
+     *
+     * @param record record
+     * @return boolean
+     */
+    public boolean acceptsWarcType(WARCRecord record)
+    {
+        return warcTypes.contains(record.getHeader().getRecordType());
+    }
+
+    /**
+     * Returns true if the record passes the content type filter
+     *
+     * @param record record
+     * @return boolean
+     */
+    public boolean acceptsContentType(WARCRecord record)
+    {
+        return !htmlOnly || isHtml(record.getContent());
+    }
+
+    /**
+     * Returns true if the record is longer than the maximum length
+     *
+     * @param record record
+     * @return boolean
+     */
+    public boolean isTooLong(WARCRecord record)
+    {
+        return maxLength >= 0 && record.getHeader().getContentLength() > maxLength;
+    }
+
+    /**
+     * Returns true if too long records are truncated instead of being skipped
+     *
+     * @return boolean
+     */
+    public boolean isTruncate()
+    {
+        return truncate;
+    }
+
+    /**
+     * Returns a copy of the record with the content truncated to the maximum length
+     *
+     * @param record record
+     * @return new record
+     * @throws IOException exception
+     */
+    public WARCRecord truncate(WARCRecord record)
+            throws IOException
+    {
+        int length = (int) Math.min(maxLength, record.getContent().length);
+
+        // the header serialization includes the original Content-Length field; the line
+        // breaks at its end are normalized to a single empty line
+        Matcher matcher = CONTENT_LENGTH.matcher(record.getHeader().toString());
+        String header = matcher.replaceFirst("Content-Length: " + length)
+                .replaceFirst("[\\r\\n]+$", "") + "\r\n\r\n";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(header.length() + length + 4);
+        out.write(header.getBytes(StandardCharsets.UTF_8));
+        out.write(record.getContent(), 0, length);
+        out.write("\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+        return new WARCRecord(new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    /**
+     * Looks for the Content-Type field in the HTTP header at the beginning of the content;
+     * returns true if it contains {@code html} or if there is no such field
+     *
+     * @param content WARC record content (HTTP header and body)
+     * @return boolean
+     */
+    static boolean isHtml(byte[] content)
+    {
+        int limit = Math.min(content.length, MAX_HTTP_HEADER_LENGTH);
+
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && content[lineEnd] != '\n') {
+                lineEnd++;
+            }
+
+            int length = lineEnd - lineStart;
+            if (length > 0 && content[lineEnd - 1] == '\r') {
+                length--;
+            }
+
+            // empty line ends the HTTP header
+            if (length == 0 && lineStart > 0) {
+                break;
+            }
+
+            if (startsWithIgnoreCase(content, lineStart, length, CONTENT_TYPE)) {
+                return containsIgnoreCase(content, lineStart + CONTENT_TYPE.length,
+                        length - CONTENT_TYPE.length, "html");
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the offset of the HTTP body, i.e., the position after the empty line that ends
+     * the HTTP header; 0 if there is no such line at the beginning of the content
+     *
+     * @param content WARC record content (HTTP header and body)
+     * @return offset
+     */
+    static int findHttpBodyOffset(byte[] content)
+    {
+        int limit = Math.min(content.length, MAX_HTTP_HEADER_LENGTH);
+
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && content[lineEnd] != '\n') {
+                lineEnd++;
+            }
+
+            if (lineEnd == limit) {
+                break;
+            }
+
+            int length = lineEnd - lineStart;
+            if (length > 0 && content[lineEnd - 1] == '\r') {
+                length--;
+            }
+
+            if (length == 0 && lineStart > 0) {
+                return lineEnd + 1;
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        return 0;
+    }
+
+    private static boolean startsWithIgnoreCase(byte[] bytes, int offset, int length,
+            byte[] prefix)
+    {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (Character.toLowerCase((char) bytes[offset + i]) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsIgnoreCase(byte[] bytes, int offset, int length,
+            String lowerCaseNeedle)
+    {
+        for (int i = 0; i + lowerCaseNeedle.length() <= length; i++) {
+            boolean matches = true;
+            for (int j = 0; j < lowerCaseNeedle.length() && matches; j++) {
+                matches = Character.toLowerCase((char) bytes[offset + i + j])
+                        == lowerCaseNeedle.charAt(j);
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
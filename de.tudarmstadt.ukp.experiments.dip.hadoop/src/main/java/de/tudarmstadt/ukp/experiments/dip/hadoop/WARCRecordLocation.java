@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Location of a WARC record: the file and the compressed offset of the gzip member the record
+ * starts in
+ *
+ * @author Ivan Habernal
+ */
+public class WARCRecordLocation
+        implements Writable
+{
+    private final Text file = new Text();
+    private long offset;
+
+    public WARCRecordLocation()
+    {
+    }
+
+    public WARCRecordLocation(String file, long offset)
+    {
+        set(file, offset);
+    }
+
+    public void set(String file, long offset)
+    {
+        this.file.set(file);
+        this.offset = offset;
+    }
+
+    public void set(Text file, long offset)
+    {
+        this.file.set(file);
+        this.offset = offset;
+    }
+
+    public String getFile()
+    {
+        return file.toString();
+    }
+
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    @Override
+    public void write(DataOutput out)
+            throws IOException
+    {
+        file.write(out);
+        out.writeLong(offset);
+    }
+
+    @Override
+    public void readFields(DataInput in)
+            throws IOException
+    {
+        file.readFields(in);
+        offset = in.readLong();
+    }
+
+    @Override
+    public String toString()
+    {
+        return file + "\t" + offset;
+    }
+}
@@ -0,0 +1,656 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import com.martinkl.warc.WARCFileReader;
+import com.martinkl.warc.WARCRecord;
+import de.tudarmstadt.ukp.experiments.dip.common.ClueWebMapFileReader;
+import de.tudarmstadt.ukp.experiments.dip.common.HTTPResponseDecoder;
+import de.tudarmstadt.ukp.experiments.dip.common.LinguisticPreprocessor;
+import de.tudarmstadt.ukp.experiments.dip.common.XmlSanitizer;
+import de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl.JusTextBoilerplateRemoval;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.MapWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.util.ToolRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the jobs on synthetic ClueWeb-like input ({@link SyntheticWARCGenerator}) in the local
+ * job runner, checks their output and reports the throughput. The input size can be set by
+ * {@code -Dbenchmark.files=N -Dbenchmark.records=N -Dbenchmark.record.size=BYTES}; the
+ * defaults are small enough for a regular build.
+ *
+ * @author Ivan Habernal
+ */
+public class LocalJobRunnerBenchmarkTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SyntheticWARCGenerator generator;
+
+    private File inputDir;
+
+    private Configuration conf;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        generator = new SyntheticWARCGenerator(Integer.getInteger("benchmark.files", 3),
+                Integer.getInteger("benchmark.records", 500),
+                Integer.getInteger("benchmark.record.size", 4096));
+
+        inputDir = temporaryFolder.newFolder("input");
+        generator.generate(inputDir);
+
+        conf = new Configuration();
+        conf.set("mapreduce.framework.name", "local");
+        conf.set("fs.defaultFS", "file:///");
+    }
+
+    @Test
+    public void testClueWebTRECIdFileExtractor()
+            throws Exception
+    {
+        // every 7th record plus an ID missing from an existing file and from a missing file
+        Set<String> expected = new TreeSet<>();
+        for (int f = 0; f < generator.getFiles(); f++) {
+            for (int r = 0; r < generator.getRecordsPerFile(); r += 7) {
+                expected.add(SyntheticWARCGenerator.trecId(f, r));
+            }
+        }
+        Set<String> missing = new TreeSet<>(Arrays.asList(
+                SyntheticWARCGenerator.trecId(0, generator.getRecordsPerFile()),
+                SyntheticWARCGenerator.trecId(generator.getFiles(), 0)));
+
+        Map<String, Set<String>> queries = new TreeMap<>();
+        queries.put("1001", expected);
+        queries.put("1002", missing);
+        File resultsFile = writeResults("results.txt", queries);
+
+        File outputDir = new File(temporaryFolder.getRoot(), "extractor-output");
+
+        long time = System.nanoTime();
+        int exitCode = ToolRunner.run(conf, new ClueWebTRECIdFileExtractor(), new String[] {
+                inputDir.toURI() + "*.warc.gz", outputDir.toURI().toString(),
+                resultsFile.getAbsolutePath() });
+        time = System.nanoTime() - time;
+        assertEquals(0, exitCode);
+
+        report(ClueWebTRECIdFileExtractor.class.getSimpleName(), generator.getTotalRecords(),
+                generator.getTotalBytes(), time);
+
+        // all records are in the output with the original content
+        SortedMap<String, WARCRecord> found = readRecords(outputDir);
+        assertEquals(expected, found.keySet());
+        assertOriginalContent(found);
+
+        assertEquals(missing, readMissingTrecIds(outputDir));
+    }
+
+    @Test
+    public void testClueWebTRECIdFileExtractorPerQuery()
+            throws Exception
+    {
+        // every 4th and every 6th record for two queries, so every 12th record is in both
+        Map<String, Set<String>> expected = new TreeMap<>();
+        expected.put("1001", new TreeSet<String>());
+        expected.put("1002", new TreeSet<String>());
+        for (int f = 0; f < generator.getFiles(); f++) {
+            for (int r = 0; r < generator.getRecordsPerFile(); r++) {
+                if (r % 4 == 0) {
+                    expected.get("1001").add(SyntheticWARCGenerator.trecId(f, r));
+                }
+                if (r % 6 == 0) {
+                    expected.get("1002").add(SyntheticWARCGenerator.trecId(f, r));
+                }
+            }
+        }
+        File resultsFile = writeResults("results.txt", expected);
+
+        conf.setBoolean(ClueWebTRECIdFileExtractor.MAPREDUCE_OUTPUT_TREC_IDS_PER_QUERY, true);
+
+        File outputDir = new File(temporaryFolder.getRoot(), "extractor-output");
+        assertEquals(0, ToolRunner.run(conf, new ClueWebTRECIdFileExtractor(), new String[] {
+                inputDir.toURI() + "*.warc.gz", outputDir.toURI().toString(),
+                resultsFile.getAbsolutePath() }));
+
+        // each query directory holds exactly the records of the query
+        for (Map.Entry<String, Set<String>> query : expected.entrySet()) {
+            SortedMap<String, WARCRecord> found = readRecords(
+                    new File(outputDir, query.getKey()));
+            assertEquals(query.getValue(), found.keySet());
+            assertOriginalContent(found);
+        }
+        assertTrue(readRecords(outputDir).isEmpty());
+    }
+
+    @Test
+    public void testClueWebTRECIdFileExtractorMapFile()
+            throws Exception
+    {
+        Set<String> expected = new TreeSet<>();
+        for (int f = 0; f < generator.getFiles(); f++) {
+            for (int r = 0; r < generator.getRecordsPerFile(); r += 3) {
+                expected.add(SyntheticWARCGenerator.trecId(f, r));
+            }
+        }
+        File resultsFile = writeResults("results.txt",
+                Collections.singletonMap("1001", expected));
+
+        conf.setBoolean(ClueWebTRECIdFileExtractor.MAPREDUCE_OUTPUT_TREC_IDS_MAPFILE, true);
+
+        File outputDir = new File(temporaryFolder.getRoot(), "extractor-output");
+        assertEquals(0, ToolRunner.run(conf, new ClueWebTRECIdFileExtractor(), new String[] {
+                inputDir.toURI() + "*.warc.gz", outputDir.toURI().toString(),
+                resultsFile.getAbsolutePath() }));
+
+        try (ClueWebMapFileReader mapFileReader = new ClueWebMapFileReader(
+                new Path(outputDir.getAbsolutePath()), conf)) {
+            // sorted by ID, the values are the HTTP bodies without the HTTP header
+            Text key = new Text();
+            BytesWritable value = new BytesWritable();
+            Set<String> found = new TreeSet<>();
+            for (MapFile.Reader reader : mapFileReader.getReaders()) {
+                while (reader.next(key, value)) {
+                    assertTrue(found.add(key.toString()));
+
+                    int[] fileAndRecord = parseTrecId(key.toString());
+                    assertEquals(generator.body(fileAndRecord[0], fileAndRecord[1]),
+                            new String(value.copyBytes(), StandardCharsets.UTF_8));
+                }
+            }
+            assertEquals(expected, found);
+
+            // random access to a single document
+            byte[] body = mapFileReader.getHttpBody(SyntheticWARCGenerator.trecId(1, 3));
+            assertNotNull(body);
+            assertEquals(generator.body(1, 3), new String(body, StandardCharsets.UTF_8));
+            assertNull(mapFileReader.getHttpBody(SyntheticWARCGenerator.trecId(1, 4)));
+        }
+
+        assertTrue(readMissingTrecIds(outputDir).isEmpty());
+    }
+
+    @Test
+    public void testClueWebTRECIdFileExtractorFilters()
+            throws Exception
+    {
+        // every third record; the plain text ones are filtered out, the rest is truncated
+        final int maxLength = 1000;
+        Set<String> requested = new TreeSet<>();
+        Set<String> expected = new TreeSet<>();
+        for (int f = 0; f < generator.getFiles(); f++) {
+            for (int r = 0; r < generator.getRecordsPerFile(); r += 3) {
+                requested.add(SyntheticWARCGenerator.trecId(f, r));
+                if (SyntheticWARCGenerator.isHtml(f, r)) {
+                    expected.add(SyntheticWARCGenerator.trecId(f, r));
+                }
+            }
+        }
+        File resultsFile = writeResults("results.txt",
+                Collections.singletonMap("1001", requested));
+
+        conf.setBoolean(WARCRecordFilter.MAPREDUCE_MAPPER_FILTER_HTML_ONLY, true);
+        conf.setLong(WARCRecordFilter.MAPREDUCE_MAPPER_FILTER_MAX_LENGTH, maxLength);
+        conf.setBoolean(WARCRecordFilter.MAPREDUCE_MAPPER_FILTER_TRUNCATE, true);
+
+        File outputDir = new File(temporaryFolder.getRoot(), "extractor-output");
+        assertEquals(0, ToolRunner.run(conf, new ClueWebTRECIdFileExtractor(), new String[] {
+                inputDir.toURI() + "*.warc.gz", outputDir.toURI().toString(),
+                resultsFile.getAbsolutePath() }));
+
+        SortedMap<String, WARCRecord> found = readRecords(outputDir);
+        assertEquals(expected, found.keySet());
+        for (WARCRecord record : found.values()) {
+            int[] fileAndRecord = parseTrecId(record.getHeader().getField("WARC-TREC-ID"));
+            assertEquals(maxLength, record.getHeader().getContentLength());
+            assertArrayEquals(Arrays.copyOf(
+                    generator.content(fileAndRecord[0], fileAndRecord[1]), maxLength),
+                    record.getContent());
+        }
+
+        // the filtered records are reported as missing
+        requested.removeAll(expected);
+        assertEquals(requested, readMissingTrecIds(outputDir));
+    }
+
+    @Test
+    public void testClueWebBoilerplateRemoval()
+            throws Exception
+    {
+        runClueWebBoilerplateRemoval(false);
+    }
+
+    @Test
+    public void testClueWebBoilerplateRemovalSegmentation()
+            throws Exception
+    {
+        runClueWebBoilerplateRemoval(true);
+    }
+
+    private void runClueWebBoilerplateRemoval(boolean segmentation)
+            throws Exception
+    {
+        // every 50th record (the segmentation is slow) plus an ID missing from an existing file
+        Set<String> expected = new TreeSet<>();
+        for (int f = 0; f < generator.getFiles(); f++) {
+            for (int r = 0; r < generator.getRecordsPerFile(); r += 50) {
+                expected.add(SyntheticWARCGenerator.trecId(f, r));
+            }
+        }
+        Set<String> missing = Collections.singleton(
+                SyntheticWARCGenerator.trecId(0, generator.getRecordsPerFile()));
+
+        Map<String, Set<String>> queries = new TreeMap<>();
+        queries.put("1001", expected);
+        queries.put("1002", missing);
+        File resultsFile = writeResults("results.txt", queries);
+
+        conf.setBoolean(ClueWebBoilerplateRemoval.MAPREDUCE_MAPPER_BOILERPLATE_SEGMENTATION,
+                segmentation);
+
+        File outputDir = new File(temporaryFolder.getRoot(), "boilerplate-output");
+        assertEquals(0, ToolRunner.run(conf, new ClueWebBoilerplateRemoval(), new String[] {
+                inputDir.toURI() + "*.warc.gz", outputDir.toURI().toString(),
+                resultsFile.getAbsolutePath() }));
+
+        Map<String, MapWritable> found = new TreeMap<>();
+        for (File file : outputDir.listFiles()) {
+            if (!file.getName().startsWith("part-m-")) {
+                continue;
+            }
+            try (SequenceFile.Reader reader = new SequenceFile.Reader(conf,
+                    SequenceFile.Reader.file(new Path(file.getAbsolutePath())))) {
+                Text key = new Text();
+                MapWritable value = new MapWritable();
+                while (reader.next(key, value)) {
+                    assertNull(found.put(key.toString(), value));
+                    value = new MapWritable();
+                }
+            }
+        }
+        assertEquals(expected, found.keySet());
+
+        // the same processing as in Step3 and Step4 (and Step5)
+        JusTextBoilerplateRemoval boilerplateRemoval = new JusTextBoilerplateRemoval();
+        LinguisticPreprocessor preprocessor = segmentation ? new LinguisticPreprocessor() : null;
+        for (Map.Entry<String, MapWritable> entry : found.entrySet()) {
+            int[] fileAndRecord = parseTrecId(entry.getKey());
+            String html = XmlSanitizer.sanitize(HTTPResponseDecoder.decodeBody(
+                    generator.content(fileAndRecord[0], fileAndRecord[1])).trim());
+            String plainText = boilerplateRemoval.getMinimalHtml(html, null);
+
+            MapWritable value = entry.getValue();
+            assertEquals(new Text(plainText), value.get(ClueWebBoilerplateRemoval.PLAIN_TEXT));
+            if (segmentation) {
+                assertEquals(new Text(preprocessor.process(plainText)),
+                        value.get(ClueWebBoilerplateRemoval.ORIGINAL_XMI));
+            }
+            else {
+                assertFalse(value.containsKey(ClueWebBoilerplateRemoval.ORIGINAL_XMI));
+            }
+        }
+
+        assertEquals(missing, readMissingTrecIds(outputDir));
+    }
+
+    @Test
+    public void testLocalWARCExtractor()
+            throws Exception
+    {
+        // every 7th record of the first and the last file plus an ID from a missing file
+        Set<String> expected = new TreeSet<>();
+        for (int f : new int[] { 0, generator.getFiles() - 1 }) {
+            for (int r = 0; r < generator.getRecordsPerFile(); r += 7) {
+                expected.add(SyntheticWARCGenerator.trecId(f, r));
+            }
+        }
+        Set<String> missing = Collections.singleton(
+                SyntheticWARCGenerator.trecId(generator.getFiles(), 0));
+
+        Map<String, Set<String>> queries = new TreeMap<>();
+        queries.put("1001", expected);
+        queries.put("1002", missing);
+        File resultsFile = writeResults("results.txt", queries);
+
+        conf.setInt(LocalWARCExtractor.LOCAL_EXTRACTOR_THREADS, 2);
+
+        File outputDir = new File(temporaryFolder.getRoot(), "local-output");
+        assertEquals(0, ToolRunner.run(conf, new LocalWARCExtractor(), new String[] {
+                inputDir.toURI() + "*.warc.gz", outputDir.toURI().toString(),
+                resultsFile.getAbsolutePath() }));
+
+        SortedMap<String, WARCRecord> found = readRecords(outputDir);
+        assertEquals(expected, found.keySet());
+        assertOriginalContent(found);
+
+        // one output file for each of the two scheduled input files
+        assertEquals(2, FileUtils.listFiles(outputDir, new String[] { "gz" }, false).size());
+
+        assertEquals(missing, readMissingTrecIds(outputDir));
+    }
+
+    @Test
+    public void testPrunedWARCInputFormat()
+            throws Exception
+    {
+        // ClueWeb09 layout next to the ClueWeb12 files
+        File clueWeb09File = new File(temporaryFolder.newFolder("en0000"), "01.warc.gz");
+        FileUtils.copyFile(inputFile(0), clueWeb09File);
+
+        Job job = Job.getInstance(conf);
+        FileInputFormat.addInputPath(job, new Path(inputDir.toURI() + "*.warc.gz"));
+        FileInputFormat.addInputPath(job, new Path(clueWeb09File.toURI()));
+
+        // only the files the IDs come from are scheduled
+        assertTrue(PrunedWARCInputFormat.setRequiredTrecIds(job, Arrays.asList(
+                SyntheticWARCGenerator.trecId(1, 0), SyntheticWARCGenerator.trecId(1, 5),
+                "clueweb09-en0000-01-00001")));
+        assertEquals(new TreeSet<>(Arrays.asList(inputFile(1).getAbsolutePath(),
+                clueWeb09File.getAbsolutePath())), listSplitFiles(job));
+
+        // an ID not following the ClueWeb pattern switches the pruning off
+        assertFalse(PrunedWARCInputFormat.setRequiredTrecIds(job, Arrays.asList(
+                SyntheticWARCGenerator.trecId(1, 0), "GX000-00-0000000")));
+        Set<String> all = new TreeSet<>();
+        for (int f = 0; f < generator.getFiles(); f++) {
+            all.add(inputFile(f).getAbsolutePath());
+        }
+        all.add(clueWeb09File.getAbsolutePath());
+        assertEquals(all, listSplitFiles(job));
+    }
+
+    @Test
+    public void testClueWebTRECIdIndexerAndFetcher()
+            throws Exception
+    {
+        // the last record of the last file is cut in half
+        File lastFile = inputFile(generator.getFiles() - 1);
+        try (RandomAccessFile raf = new RandomAccessFile(lastFile, "rw")) {
+            raf.setLength(raf.length() - 200);
+        }
+
+        File indexDir = new File(temporaryFolder.getRoot(), "index");
+        assertEquals(0, ToolRunner.run(conf, new ClueWebTRECIdIndexer(), new String[] {
+                inputDir.toURI() + "*.warc.gz", indexDir.toURI().toString() }));
+
+        // all complete records are indexed
+        Set<String> expected = new TreeSet<>();
+        for (int f = 0; f < generator.getFiles(); f++) {
+            for (int r = 0; r < generator.getRecordsPerFile(); r++) {
+                expected.add(SyntheticWARCGenerator.trecId(f, r));
+            }
+        }
+        String truncated = SyntheticWARCGenerator.trecId(generator.getFiles() - 1,
+                generator.getRecordsPerFile() - 1);
+        expected.remove(truncated);
+
+        Set<String> indexed = new TreeSet<>();
+        try (ClueWebMapFileReader index = new ClueWebMapFileReader(
+                new Path(indexDir.getAbsolutePath()), conf)) {
+            Text key = new Text();
+            WARCRecordLocation location = new WARCRecordLocation();
+            for (MapFile.Reader reader : index.getReaders()) {
+                while (reader.next(key, location)) {
+                    assertTrue(indexed.add(key.toString()));
+                }
+            }
+        }
+        assertEquals(expected, indexed);
+
+        // the first file is replaced after indexing, so its offsets are stale
+        FileUtils.copyFile(inputFile(1), inputFile(0));
+
+        Set<String> fetchable = new TreeSet<>(Arrays.asList(SyntheticWARCGenerator.trecId(1, 0),
+                SyntheticWARCGenerator.trecId(1, generator.getRecordsPerFile() - 1)));
+        File resultsFile = temporaryFolder.newFile("fetch-results.txt");
+        try (PrintWriter pw = new PrintWriter(resultsFile, "utf-8")) {
+            for (String trecId : fetchable) {
+                pw.println("1001 Q0 " + trecId + " 1 1.0 indri");
+            }
+            // at the offset of the first record there is the first record of the other file
+            pw.println("1001 Q0 " + SyntheticWARCGenerator.trecId(0, 0) + " 1 1.0 indri");
+            pw.println("1001 Q0 " + SyntheticWARCGenerator.trecId(0, 3) + " 1 1.0 indri");
+            pw.println("1001 Q0 " + truncated + " 1 1.0 indri");
+        }
+
+        File outputDir = new File(temporaryFolder.getRoot(), "fetcher-output");
+        assertEquals(1, ToolRunner.run(conf, new WARCRecordFetcher(), new String[] {
+                indexDir.toURI().toString(), resultsFile.getAbsolutePath(),
+                outputDir.toURI().toString() }));
+
+        // only the records from the intact file are fetched, the mismatches are not written
+        Set<String> fetched = new TreeSet<>();
+        for (File file : FileUtils.listFiles(outputDir, new String[] { "gz" }, false)) {
+            WARCFileReader reader = new WARCFileReader(conf, new Path(file.getAbsolutePath()));
+            try {
+                while (true) {
+                    assertTrue(fetched.add(
+                            reader.read().getHeader().getField("WARC-TREC-ID")));
+                }
+            }
+            catch (EOFException e) {
+                // end of file
+            }
+            finally {
+                reader.close();
+            }
+        }
+        assertEquals(fetchable, fetched);
+    }
+
+    @Test
+    public void testOriginalURLGrep()
+            throws Exception
+    {
+        runOriginalURLGrep(false);
+    }
+
+    @Test
+    public void testOriginalURLGrepReduceSideJoin()
+            throws Exception
+    {
+        runOriginalURLGrep(true);
+    }
+
+    private void runOriginalURLGrep(boolean reduceSideJoin)
+            throws Exception
+    {
+        File urlTable = temporaryFolder.newFile("url-table.txt");
+        generator.generateURLTable(urlTable);
+
+        // every 5th node ID plus an unknown one
+        Map<String, String> expected = new HashMap<>();
+        File nodeIds = temporaryFolder.newFile("node-ids.txt");
+        try (PrintWriter pw = new PrintWriter(nodeIds, "utf-8")) {
+            for (int f = 0; f < generator.getFiles(); f++) {
+                for (int r = 0; r < generator.getRecordsPerFile(); r += 5) {
+                    String nodeId = SyntheticWARCGenerator.nodeId(f, r);
+                    expected.put(nodeId, SyntheticWARCGenerator.url(f, r));
+                    pw.println(nodeId);
+                }
+            }
+            pw.println("unknown");
+        }
+
+        conf.setBoolean(OriginalURLGrep.MAPREDUCE_MAPPER_NODE_IDS_JOIN, true);
+        if (reduceSideJoin) {
+            conf.setLong(OriginalURLGrep.MAPREDUCE_JOB_NODE_IDS_MAX_CACHE_SIZE, 0);
+        }
+
+        File outputDir = new File(temporaryFolder.getRoot(), "grep-output");
+
+        long time = System.nanoTime();
+        int exitCode = ToolRunner.run(conf, new OriginalURLGrep(), new String[] {
+                urlTable.toURI().toString(), outputDir.toURI().toString(),
+                nodeIds.toURI().toString() });
+        time = System.nanoTime() - time;
+        assertEquals(0, exitCode);
+
+        report(OriginalURLGrep.class.getSimpleName() + (reduceSideJoin ? " (reduce-side join)" :
+                ""), generator.getTotalRecords(), urlTable.length(), time);
+
+        Map<String, String> found = new HashMap<>();
+        for (File file : outputDir.listFiles()) {
+            if (file.getName().startsWith("part-")) {
+                for (String line : FileUtils.readLines(file, "utf-8")) {
+                    String[] split = line.split("\t");
+                    assertEquals(null, found.put(split[0], split[1]));
+                }
+            }
+        }
+        assertEquals(expected, found);
+
+        assertEquals(Collections.singletonList("unknown"), FileUtils.readLines(
+                new File(outputDir, OriginalURLGrep.MISSING_NODE_IDS_FILE), "utf-8"));
+    }
+
+    private File inputFile(int file)
+    {
+        return new File(inputDir, String.format("0000wb-%02d.warc.gz", file));
+    }
+
+    /**
+     * Writes a results file with the IDs retrieved for each query
+     */
+    private File writeResults(String name, Map<String, ? extends Collection<String>> queries)
+            throws IOException
+    {
+        File resultsFile = temporaryFolder.newFile(name);
+        try (PrintWriter pw = new PrintWriter(resultsFile, "utf-8")) {
+            for (Map.Entry<String, ? extends Collection<String>> query : queries.entrySet()) {
+                int rank = 1;
+                for (String trecId : query.getValue()) {
+                    pw.println(query.getKey() + " Q0 " + trecId + " " + rank++ + " 1.0 indri");
+                }
+            }
+        }
+        return resultsFile;
+    }
+
+    /**
+     * Reads the records of all .gz files in the directory (not in its sub-directories); fails
+     * on duplicate IDs
+     */
+    private SortedMap<String, WARCRecord> readRecords(File dir)
+            throws IOException
+    {
+        SortedMap<String, WARCRecord> result = new TreeMap<>();
+        for (File file : FileUtils.listFiles(dir, new String[] { "gz" }, false)) {
+            WARCFileReader reader = new WARCFileReader(conf, new Path(file.getAbsolutePath()));
+            try {
+                while (true) {
+                    WARCRecord record = reader.read();
+                    assertNull(result.put(record.getHeader().getField("WARC-TREC-ID"), record));
+                }
+            }
+            catch (EOFException e) {
+                // end of file
+            }
+            finally {
+                reader.close();
+            }
+        }
+        return result;
+    }
+
+    private void assertOriginalContent(Map<String, WARCRecord> records)
+    {
+        for (Map.Entry<String, WARCRecord> entry : records.entrySet()) {
+            int[] fileAndRecord = parseTrecId(entry.getKey());
+            assertArrayEquals(generator.content(fileAndRecord[0], fileAndRecord[1]),
+                    entry.getValue().getContent());
+        }
+    }
+
+    private static Set<String> readMissingTrecIds(File outputDir)
+            throws IOException
+    {
+        return new TreeSet<>(FileUtils.readLines(
+                new File(outputDir, ClueWebTRECIdFileExtractor.MISSING_TREC_IDS_FILE),
+                "utf-8"));
+    }
+
+    /**
+     * Returns the local paths of the input splits of the job; fails if a file is split
+     */
+    private static Set<String> listSplitFiles(Job job)
+            throws IOException
+    {
+        Set<String> result = new TreeSet<>();
+        for (InputSplit split : new PrunedWARCInputFormat().getSplits(job)) {
+            assertTrue(result.add(
+                    new File(((FileSplit) split).getPath().toUri()).getAbsolutePath()));
+        }
+        return result;
+    }
+
+    private static int[] parseTrecId(String trecId)
+    {
+        // clueweb12-0000wb-NN-MMMMM
+        String[] split = trecId.split("-");
+        return new int[] { Integer.parseInt(split[2]), Integer.parseInt(split[3]) };
+    }
+
+    private static void report(String name, long records, long bytes, long nanos)
+    {
+        double seconds = nanos / 1e9;
+        System.out.printf("%s: %d records, %d bytes in %.2f s; %.0f records/s, %.2f MB/s%n",
+                name, records, bytes, seconds, records / seconds,
+                bytes / seconds / (1024 * 1024));
+    }
+}
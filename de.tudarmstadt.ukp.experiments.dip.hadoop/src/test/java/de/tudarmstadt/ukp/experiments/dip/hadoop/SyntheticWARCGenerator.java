@@ -0,0 +1,244 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.hadoop;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates ClueWeb12-like WARC files ({@code 0000wb-NN.warc.gz}, one gzip member per record,
+ * a {@code warcinfo} record followed by {@code response} records with
+ * {@code clueweb12-0000wb-NN-MMMMM} TREC IDs; every tenth record is {@code text/plain}, the
+ * others are HTML) and the corresponding URL table for
+ * {@link OriginalURLGrep}. The content is deterministic, so the expected output can be
+ * re-generated for any record.
+ *
+ * @author Ivan Habernal
+ */
+public class SyntheticWARCGenerator
+{
+    // half of them are English stopwords, so the boilerplate removal keeps the (long enough)
+    // paragraphs
+    private static final String[] WORDS = { "the", "of", "and", "a", "in", "to", "is", "for",
+            "with", "on", "that", "by", "as", "from", "it", "are", "this", "be", "at", "an",
+            "retrieval", "query", "web", "document", "collection", "paragraph", "sentence",
+            "relevant", "focused", "search", "ranking", "crowdsourcing", "annotation", "corpus",
+            "html", "page", "text", "judgment", "passage", "topic" };
+
+    private final int files;
+    private final int recordsPerFile;
+    private final int bodySize;
+
+    private long totalBytes;
+
+    /**
+     * @param files          number of WARC files
+     * @param recordsPerFile number of response records per file
+     * @param bodySize       approximate size of the HTML body of each record in bytes
+     */
+    public SyntheticWARCGenerator(int files, int recordsPerFile, int bodySize)
+    {
+        this.files = files;
+        this.recordsPerFile = recordsPerFile;
+        this.bodySize = bodySize;
+    }
+
+    public static String trecId(int file, int record)
+    {
+        return String.format("clueweb12-0000wb-%02d-%05d", file, record);
+    }
+
+    public static String url(int file, int record)
+    {
+        return String.format("http://www.example%02d.com/page/%05d.html", file, record);
+    }
+
+    public static String nodeId(int file, int record)
+    {
+        return String.format("%02d%05d", file, record);
+    }
+
+    public static boolean isHtml(int file, int record)
+    {
+        return record % 10 != 9;
+    }
+
+    /**
+     * Returns the HTML body of the record (without the HTTP header)
+     *
+     * @param file   file number
+     * @param record record number
+     * @return body
+     */
+    public String body(int file, int record)
+    {
+        Random random = new Random(file * 1000003L + record);
+
+        StringBuilder sb = new StringBuilder(bodySize + 64);
+        sb.append("<html><head><title>").append(trecId(file, record))
+                .append("</title></head><body>\n");
+        while (sb.length() < bodySize) {
+            sb.append("<p>");
+            int sentenceLength = 40 + random.nextInt(20);
+            for (int i = 0; i < sentenceLength; i++) {
+                sb.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            sb.append("</p>\n");
+        }
+        sb.append("</body></html>");
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the content of the WARC record (HTTP header and body)
+     *
+     * @param file   file number
+     * @param record record number
+     * @return content
+     */
+    public byte[] content(int file, int record)
+    {
+        return ("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: " + (isHtml(file, record) ? "text/html" : "text/plain")
+                + "; charset=utf-8\r\n"
+                + "\r\n"
+                + body(file, record)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes all WARC files into the directory
+     *
+     * @param dir output directory
+     * @return files
+     * @throws IOException exception
+     */
+    public List<File> generate(File dir)
+            throws IOException
+    {
+        List<File> result = new ArrayList<>();
+        totalBytes = 0;
+
+        for (int f = 0; f < files; f++) {
+            File file = new File(dir, String.format("0000wb-%02d.warc.gz", f));
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                writeMember(out, "WARC/1.0\r\n"
+                        + "WARC-Type: warcinfo\r\n"
+                        + "WARC-Date: 2012-02-10T21:51:20Z\r\n"
+                        + "Content-Length: 0\r\n"
+                        + "\r\n"
+                        + "\r\n\r\n");
+
+                for (int r = 0; r < recordsPerFile; r++) {
+                    byte[] content = content(f, r);
+                    totalBytes += content.length;
+
+                    writeMember(out, "WARC/1.0\r\n"
+                            + "WARC-Type: response\r\n"
+                            + "WARC-Date: 2012-02-10T21:51:20Z\r\n"
+                            + "WARC-TREC-ID: " + trecId(f, r) + "\r\n"
+                            + "WARC-Target-URI: " + url(f, r) + "\r\n"
+                            + "Content-Type: application/http; msgtype=response\r\n"
+                            + "Content-Length: " + content.length + "\r\n"
+                            + "\r\n"
+                            + new String(content, StandardCharsets.UTF_8)
+                            + "\r\n\r\n");
+                }
+            }
+            result.add(file);
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes the URL table ({@code url<TAB>nodeId} per line) of all records
+     *
+     * @param file output file
+     * @throws IOException exception
+     */
+    public void generateURLTable(File file)
+            throws IOException
+    {
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8))) {
+            for (int f = 0; f < files; f++) {
+                for (int r = 0; r < recordsPerFile; r++) {
+                    pw.println(url(f, r) + "\t" + nodeId(f, r));
+                }
+            }
+        }
+    }
+
+    /**
+     * A separate gzip member for each record (as in ClueWeb)
+     */
+    private static void writeMember(OutputStream out, String record)
+            throws IOException
+    {
+        GZIPOutputStream gzip = new GZIPOutputStream(out)
+        {
+            @Override
+            public void close()
+                    throws IOException
+            {
+                // keep the underlying stream open
+                finish();
+            }
+        };
+        gzip.write(record.getBytes(StandardCharsets.UTF_8));
+        gzip.close();
+    }
+
+    public long getTotalRecords()
+    {
+        return (long) files * recordsPerFile;
+    }
+
+    /**
+     * Returns the total size of the response record contents written by the last
+     * {@link #generate(File)}
+     *
+     * @return bytes
+     */
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    public int getFiles()
+    {
+        return files;
+    }
+
+    public int getRecordsPerFile()
+    {
+        return recordsPerFile;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.tudarmstadt.ukp.experiments.dip.wp1.data;
+
+/**
+ * Map with primitive {@code long} keys (open addressing with linear probing); no boxing of the
+ * keys and no entry objects. Null values are not supported. Not thread-safe.
+ *
+ * @param <V> value type
+ * @author Ivan Habernal
+ */
+public class LongObjectHashMap<V>
+{
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // 0 marks an empty slot; the value of the key 0 is stored separately
+    private long[] keys;
+    private Object[] values;
+    private V zeroValue;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    public LongObjectHashMap()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of keys that can be added without resizing
+     */
+    public LongObjectHashMap(int expectedSize)
+    {
+        allocate(tableSize(expectedSize));
+    }
+
+    /**
+     * Power of two with at most 50 % load for the expected number of elements
+     */
+    static int tableSize(int expectedSize)
+    {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity / 2 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Spreads the bits of the key (finalizer of MurmurHash3)
+     */
+    static int hash(long key)
+    {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity / 2;
+    }
+
+    /**
+     * Associates the value with the key
+     *
+     * @param key   key
+     * @param value value, not null
+     * @return previous value or null
+     */
+    public V put(long key, V value)
+    {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+
+        if (key == 0) {
+            V previous = zeroValue;
+            zeroValue = value;
+            if (previous == null) {
+                size++;
+            }
+            return previous;
+        }
+
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                @SuppressWarnings("unchecked")
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (size > resizeThreshold) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of the key
+     *
+     * @param key key
+     * @return value or null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key)
+    {
+        if (key == 0) {
+            return zeroValue;
+        }
+
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key)
+    {
+        return get(key) != null;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Returns all keys (in no particular order)
+     *
+     * @return new array
+     */
+    public long[] keys()
+    {
+        long[] result = new long[size];
+        int j = 0;
+        if (zeroValue != null) {
+            result[j++] = 0;
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                result[j++] = key;
+            }
+        }
+        return result;
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = hash(oldKeys[j]) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
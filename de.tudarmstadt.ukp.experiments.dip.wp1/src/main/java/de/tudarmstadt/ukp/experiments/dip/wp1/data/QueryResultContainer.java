@@ -19,6 +19,7 @@
 package de.tudarmstadt.ukp.experiments.dip.wp1.data;
 
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import org.apache.commons.io.IOUtils;
 import org.xml.sax.SAXException;
 
@@ -95,14 +96,33 @@ public class QueryResultContainer
             throws IOException
     {
         Writer out = new StringWriter();
+        toXML(out);
+        IOUtils.closeQuietly(out);
+
+        return out.toString();
+    }
+
+    /**
+     * Serializes into the writer (which is flushed but not closed); characters not allowed in
+     * XML are removed on the fly (see {@link XmlSanitizingWriter})
+     *
+     * @param out writer
+     * @throws IOException exception
+     */
+    public void toXML(Writer out)
+            throws IOException
+    {
         out.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
 
         XStream xStream = initializeXStream();
 
-        xStream.toXML(this, out);
-        IOUtils.closeQuietly(out);
-
-        return out.toString();
+        HierarchicalStreamWriter writer = new XmlSanitizingWriter(out);
+        try {
+            xStream.marshal(this, writer);
+        }
+        finally {
+            writer.flush();
+        }
     }
 
     /**
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.tudarmstadt.ukp.experiments.dip.wp1.data;
+
+import com.thoughtworks.xstream.core.util.QuickWriter;
+import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
+import de.tudarmstadt.ukp.experiments.dip.common.XmlSanitizer;
+
+import java.io.Writer;
+
+/**
+ * XStream writer that drops the characters not allowed in XML (see {@link XmlSanitizer}) from
+ * text nodes and attribute values while serializing. The filtering must happen here and not
+ * in the underlying {@link Writer}, as {@link PrettyPrintWriter} escapes control characters to
+ * (invalid) character references such as {@code &#x1;} before writing them out.
+ *
+ * @author Ivan Habernal
+ */
+public class XmlSanitizingWriter
+        extends PrettyPrintWriter
+{
+    public XmlSanitizingWriter(Writer writer)
+    {
+        super(writer);
+    }
+
+    @Override
+    protected void writeText(QuickWriter writer, String text)
+    {
+        super.writeText(writer, XmlSanitizer.sanitize(text));
+    }
+
+    @Override
+    protected void writeAttributeValue(QuickWriter writer, String text)
+    {
+        super.writeAttributeValue(writer, XmlSanitizer.sanitize(text));
+    }
+}
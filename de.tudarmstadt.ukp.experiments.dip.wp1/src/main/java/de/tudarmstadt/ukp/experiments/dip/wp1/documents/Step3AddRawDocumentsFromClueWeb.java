@@ -18,26 +18,64 @@
 
 package de.tudarmstadt.ukp.experiments.dip.wp1.documents;
 
-import com.martinkl.warc.WARCFileReader;
 import com.martinkl.warc.WARCRecord;
+import de.tudarmstadt.ukp.experiments.dip.common.ClueWebIdCodec;
+import de.tudarmstadt.ukp.experiments.dip.common.HTTPResponseDecoder;
+import de.tudarmstadt.ukp.experiments.dip.wp1.data.LongObjectHashMap;
 import de.tudarmstadt.ukp.experiments.dip.wp1.data.QueryResultContainer;
+import de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers.ExtractionCheckpoint;
+import de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers.PipelinedWARCReader;
 import org.apache.commons.io.FileUtils;
-import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.Path;
 
-import java.io.EOFException;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.regex.Pattern;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Adds raw html text for each retrieved result in the query containers. Requires .warc.gz file
  * with all ClueWeb documents extracted in advance.
+ * <p/>
+ * All query containers are loaded first, so the warc file is read only once for all queries.
+ * The matching documents are decoded by a pool of threads while the file is being read (see
+ * {@link PipelinedWARCReader}); the optional fourth parameter sets the number of threads (all
+ * cores by default). Characters not allowed in XML are removed while the containers are being
+ * written.
+ * <p/>
+ * The containers with newly extracted documents are saved to the output dir every
+ * {@value #CHECKPOINT_INTERVAL} documents, and then the position in the warc file (the offset of
+ * the gzip member) is recorded in a checkpoint file in the output dir
+ * ({@link ExtractionCheckpoint}). An interrupted run resumes at that position with the saved
+ * containers when started again with the same parameters; the containers in the output dir are
+ * incomplete as long as the checkpoint file exists. Corrupt gzip members are skipped and their
+ * documents are treated as missing.
  *
  * @author Ivan Habernal
  */
 public class Step3AddRawDocumentsFromClueWeb
 {
+    /**
+     * Progress of the run in the output dir; deleted when the run is complete
+     */
+    public static final String CHECKPOINT_FILE = "step3-checkpoint.bin";
+
+    /**
+     * Number of extracted documents after which the changed containers are saved and the
+     * position is recorded
+     */
+    private static final int CHECKPOINT_INTERVAL = 1000;
+
     public static void main(String[] args)
             throws IOException
     {
@@ -50,87 +88,246 @@ public class Step3AddRawDocumentsFromClueWeb
         File warc = new File(args[1]);
 
         // output dir
-        File outputDir = new File(args[2]);
+        final File outputDir = new File(args[2]);
         if (!outputDir.exists()) {
             outputDir.mkdirs();
         }
 
-        // iterate over query containers
-        for (File f : FileUtils.listFiles(inputDir, new String[] { "xml" }, false)) {
-            QueryResultContainer queryResultContainer = QueryResultContainer
-                    .fromXML(FileUtils.readFileToString(f, "utf-8"));
-
-            // iterate over warc for each query
-            WARCFileReader reader = new WARCFileReader(new Configuration(),
-                    new Path(warc.getAbsolutePath()));
-            try {
-                while (true) {
-                    WARCRecord read = reader.read();
-                    String trecId = read.getHeader().getField("WARC-TREC-ID");
-
-                    // now iterate over retrieved results for the query and find matching IDs
-                    for (QueryResultContainer.SingleRankedResult rankedResults : queryResultContainer.rankedResults) {
-                        if (rankedResults.clueWebID.equals(trecId)) {
-                            // add the raw html content
-                            String fullHTTPResponse = new String(read.getContent(), "utf-8");
-                            // TODO fix coding?
-
-                            String html = removeHTTPHeaders(fullHTTPResponse);
-
-                            rankedResults.originalHtml = sanitizeXmlChars(html.trim());
+        // number of threads for decoding the documents (all cores by default)
+        final int threads = args.length > 3 ? Integer.parseInt(args[3]) :
+                Runtime.getRuntime().availableProcessors();
+
+        // progress of an interrupted run, if any
+        final ExtractionCheckpoint checkpoint = new ExtractionCheckpoint(
+                new File(outputDir, CHECKPOINT_FILE), warc);
+        try {
+            if (checkpoint.isResumed()) {
+                System.out.println("Resuming at gzip member offset " + checkpoint
+                        .getMemberOffset() + " after " + checkpoint.getRecordsInMember()
+                        + " records of the member with " + checkpoint.getWrittenContainers()
+                        .size() + " containers done");
+            }
+
+            // load all query containers first (except for those written by an interrupted run;
+            // the others are taken with the documents it saved)
+            List<File> files = new ArrayList<>(
+                    FileUtils.listFiles(inputDir, new String[] { "xml" }, false));
+            List<QueryResultContainer> containers = new ArrayList<>(files.size());
+            for (File f : files) {
+                QueryResultContainer queryResultContainer = QueryResultContainer
+                        .fromXML(FileUtils.readFileToString(f, "utf-8"));
+                if (checkpoint.getWrittenContainers().contains(queryResultContainer.qID)) {
+                    continue;
+                }
+
+                File savedFile = new File(outputDir, queryResultContainer.qID + ".xml");
+                if (checkpoint.isResumed() && savedFile.exists()) {
+                    queryResultContainer = QueryResultContainer
+                            .fromXML(FileUtils.readFileToString(savedFile, "utf-8"));
+                }
+                containers.add(queryResultContainer);
+            }
+
+            // results of all queries by the encoded ClueWeb ID (the same document may be
+            // retrieved for several queries); results with other IDs are indexed by the ID string
+            final LongObjectHashMap<List<QueryResultContainer.SingleRankedResult>> resultsById =
+                    new LongObjectHashMap<>();
+            final Map<String, List<QueryResultContainer.SingleRankedResult>> otherResults =
+                    new HashMap<>();
+            // container of each result, for saving the changed ones
+            final Map<QueryResultContainer.SingleRankedResult, QueryResultContainer> resultContainers =
+                    new HashMap<>();
+            for (QueryResultContainer queryResultContainer : containers) {
+                for (QueryResultContainer.SingleRankedResult rankedResults : queryResultContainer.rankedResults) {
+                    resultContainers.put(rankedResults, queryResultContainer);
+                    long code = ClueWebIdCodec.encode(rankedResults.clueWebID);
+                    List<QueryResultContainer.SingleRankedResult> results =
+                            code != ClueWebIdCodec.INVALID ?
+                                    resultsById.get(code) :
+                                    otherResults.get(rankedResults.clueWebID);
+                    if (results == null) {
+                        results = new ArrayList<>(1);
+                        if (code != ClueWebIdCodec.INVALID) {
+                            resultsById.put(code, results);
+                        }
+                        else {
+                            otherResults.put(rankedResults.clueWebID, results);
                         }
                     }
+                    results.add(rankedResults);
                 }
             }
-            catch (EOFException e) {
-                // end of file
+
+            if (!checkpoint.isWarcFinished()) {
+                // containers with documents extracted since they were saved
+                final Set<QueryResultContainer> changedContainers = new HashSet<>();
+
+                // a single pass over the warc for all queries (starting where an interrupted run
+                // stopped); the content of the matching records is decoded in parallel
+                PipelinedWARCReader reader = new PipelinedWARCReader(threads, threads * 4);
+                reader.read(warc, checkpoint.getMemberOffset(), checkpoint.getRecordsInMember(),
+                        new PipelinedWARCReader.RecordHandler<SelectedRecord, String>()
+                        {
+                            // documents extracted so far
+                            private long documents;
+
+                            @Override
+                            public SelectedRecord select(WARCRecord record, long memberOffset,
+                                    long recordInMember)
+                            {
+                                String trecId = record.getHeader().getField("WARC-TREC-ID");
+
+                                // now find the retrieved results with the matching ID; skip
+                                // them if all have the html already
+                                List<QueryResultContainer.SingleRankedResult> results =
+                                        findResults(resultsById, otherResults, trecId);
+                                if (results == null || !hasMissingHtml(results)) {
+                                    return null;
+                                }
+
+                                return new SelectedRecord(memberOffset, recordInMember,
+                                        results);
+                            }
+
+                            @Override
+                            public String process(WARCRecord record)
+                            {
+                                // add the raw html content; only the body is decoded, with the
+                                // charset declared in the HTTP header or in the html
+                                // (invalid XML characters are removed when saving the container)
+                                String html = HTTPResponseDecoder.decodeBody(record.getContent());
+
+                                return html.trim();
+                            }
+
+                            @Override
+                            public void consume(SelectedRecord selectedRecord, String html)
+                                    throws IOException
+                            {
+                                for (QueryResultContainer.SingleRankedResult rankedResults : selectedRecord.results) {
+                                    if (rankedResults.originalHtml == null) {
+                                        rankedResults.originalHtml = html;
+                                        changedContainers
+                                                .add(resultContainers.get(rankedResults));
+                                    }
+                                }
+
+                                // the records are consumed in the file order, so all records
+                                // up to this one are done once the containers are saved
+                                documents++;
+                                if (documents % CHECKPOINT_INTERVAL == 0) {
+                                    saveContainers(changedContainers, outputDir);
+                                    checkpoint.positionDone(selectedRecord.memberOffset,
+                                            selectedRecord.recordInMember);
+                                }
+                            }
+                        });
+
+                if (reader.getCorruptMembers() > 0) {
+                    System.err.println("Skipped " + reader.getCorruptMembers()
+                            + " corrupt gzip members in " + warc);
+                }
+
+                saveContainers(changedContainers, outputDir);
+                checkpoint.warcFinished();
             }
 
-            // check if all results have filled html
-            for (QueryResultContainer.SingleRankedResult rankedResults : queryResultContainer.rankedResults) {
-                if (rankedResults.originalHtml == null) {
-                    System.err.println("Missing original html for\t" + rankedResults.clueWebID
-                            + ", setting relevance to false");
-                    rankedResults.relevant = Boolean.FALSE.toString();
+            for (QueryResultContainer queryResultContainer : containers) {
+                // check if all results have filled html
+                for (QueryResultContainer.SingleRankedResult rankedResults : queryResultContainer.rankedResults) {
+                    if (rankedResults.originalHtml == null) {
+                        System.err.println("Missing original html for\t" + rankedResults.clueWebID
+                                + ", setting relevance to false");
+                        rankedResults.relevant = Boolean.FALSE.toString();
+                    }
                 }
+
+                // and save the query to output dir
+                File outputFile = saveContainer(queryResultContainer, outputDir);
+                checkpoint.containerWritten(queryResultContainer.qID);
+                System.out.println("Finished " + outputFile);
             }
 
-            // and save the query to output dir
-            File outputFile = new File(outputDir, queryResultContainer.qID + ".xml");
-            FileUtils.writeStringToFile(outputFile, queryResultContainer.toXML(), "utf-8");
-            System.out.println("Finished " + outputFile);
+            // all done
+            checkpoint.delete();
+        }
+        finally {
+            checkpoint.close();
         }
-
     }
 
     /**
-     * Sanitizes the input string so it can be serialized as XML (removes unsupported control
-     * characters)
+     * Returns the retrieved results with the given ID
      *
-     * @param xml input string
-     * @return output string
+     * @return list or null if there is none
      */
-    public static String sanitizeXmlChars(String xml)
+    private static List<QueryResultContainer.SingleRankedResult> findResults(
+            LongObjectHashMap<List<QueryResultContainer.SingleRankedResult>> resultsById,
+            Map<String, List<QueryResultContainer.SingleRankedResult>> otherResults,
+            String trecId)
     {
-        if (xml == null || ("".equals(xml))) {
-            return "";
+        long code = ClueWebIdCodec.encode(trecId);
+        return code != ClueWebIdCodec.INVALID ? resultsById.get(code) : otherResults.get(trecId);
+    }
+
+    private static boolean hasMissingHtml(List<QueryResultContainer.SingleRankedResult> results)
+    {
+        for (QueryResultContainer.SingleRankedResult rankedResults : results) {
+            if (rankedResults.originalHtml == null) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        Pattern xmlInvalidChars =
-                Pattern.compile(
-                        "[^\\u0009\\u000A\\u000D\\u0020-\\uD7FF\\uE000-\\uFFFD\\x{10000}-\\x{10FFFF}]"
-                );
-        return xmlInvalidChars.matcher(xml).replaceAll("");
+    /**
+     * Saves the containers to the output dir and clears the set
+     */
+    private static void saveContainers(Set<QueryResultContainer> containers, File outputDir)
+            throws IOException
+    {
+        for (QueryResultContainer queryResultContainer : containers) {
+            saveContainer(queryResultContainer, outputDir);
+        }
+        containers.clear();
     }
 
-    public static String removeHTTPHeaders(String fullHTTPResponse)
+    /**
+     * Saves the container to the output dir (streamed; no in-memory copy of the xml); a
+     * temporary file is renamed, so an interrupted run never leaves a truncated container
+     *
+     * @return the output file
+     */
+    private static File saveContainer(QueryResultContainer queryResultContainer, File outputDir)
+            throws IOException
     {
-        int i = fullHTTPResponse.indexOf("Content-Length:");
-        int j = fullHTTPResponse.indexOf("\n", i);
+        File outputFile = new File(outputDir, queryResultContainer.qID + ".xml");
+        File tmpFile = new File(outputDir, queryResultContainer.qID + ".xml.tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tmpFile), StandardCharsets.UTF_8))) {
+            queryResultContainer.toXML(writer);
+        }
+        Files.move(tmpFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
 
-        // Get rid of HTTP headers. Look for the first '<'.
-        int k = fullHTTPResponse.indexOf("<", j);
+        return outputFile;
+    }
+
+    /**
+     * A warc record with the retrieved results it matches
+     */
+    private static class SelectedRecord
+    {
+        final long memberOffset;
+        final long recordInMember;
+        final List<QueryResultContainer.SingleRankedResult> results;
 
-        return k != -1 ? fullHTTPResponse.substring(k) : fullHTTPResponse.substring(j + 1);
+        SelectedRecord(long memberOffset, long recordInMember,
+                List<QueryResultContainer.SingleRankedResult> results)
+        {
+            this.memberOffset = memberOffset;
+            this.recordInMember = recordInMember;
+            this.results = results;
+        }
     }
 }
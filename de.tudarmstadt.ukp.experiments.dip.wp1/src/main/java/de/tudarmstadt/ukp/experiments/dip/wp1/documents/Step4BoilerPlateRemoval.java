@@ -18,13 +18,20 @@
 
 package de.tudarmstadt.ukp.experiments.dip.wp1.documents;
 
+import de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.BoilerPlateRemoval;
+import de.tudarmstadt.ukp.experiments.dip.common.boilerplateremoval.impl.JusTextBoilerplateRemoval;
 import de.tudarmstadt.ukp.experiments.dip.wp1.data.QueryResultContainer;
-import de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers.boilerplateremoval.BoilerPlateRemoval;
-import de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers.boilerplateremoval.impl.JusTextBoilerplateRemoval;
+import de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers.Futures;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Boilerplate removal implementation of JusText (Pomikalek, 2011) developed as part of C4Corpus
@@ -32,7 +39,9 @@ import java.io.IOException;
  * <p/>
  * It keeps a minimal html markup (headers, paragraphs) in the text
  * <p/>
- * The third cmd parameter sets whether the original HTML should retain or be deleted
+ * The third cmd parameter sets whether the original HTML should retain or be deleted; the
+ * optional fourth parameter sets the number of threads the documents are processed by (the
+ * output is the same for any number of threads)
  *
  * @author Ivan Habernal
  */
@@ -56,33 +65,63 @@ public class Step4BoilerPlateRemoval
 
         System.out.println(keepOriginalHTML);
 
-        BoilerPlateRemoval boilerPlateRemoval = new JusTextBoilerplateRemoval();
+        // number of threads (1 = sequential processing, default)
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
 
-        // iterate over query containers
-        for (File f : FileUtils.listFiles(inputDir, new String[] { "xml" }, false)) {
-            QueryResultContainer queryResultContainer = QueryResultContainer
-                    .fromXML(FileUtils.readFileToString(f, "utf-8"));
+        // shared by all threads
+        final BoilerPlateRemoval boilerPlateRemoval = new JusTextBoilerplateRemoval();
 
-            for (QueryResultContainer.SingleRankedResult rankedResults : queryResultContainer.rankedResults) {
-                // boilerplate removal
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // iterate over query containers
+            for (File f : FileUtils.listFiles(inputDir, new String[] { "xml" }, false)) {
+                QueryResultContainer queryResultContainer = QueryResultContainer
+                        .fromXML(FileUtils.readFileToString(f, "utf-8"));
 
-                // there are some empty (corrupted) documents in ClueWeb, namely 0308wb-83.warc.gz
-                if (rankedResults.originalHtml != null) {
+                // boilerplate removal of all documents of the query in parallel
+                List<Future<String>> plainTexts = new ArrayList<>(
+                        queryResultContainer.rankedResults.size());
+                for (QueryResultContainer.SingleRankedResult rankedResults : queryResultContainer.rankedResults) {
+                    final String originalHtml = rankedResults.originalHtml;
 
-                rankedResults.plainText = boilerPlateRemoval
-                        .getMinimalHtml(rankedResults.originalHtml, null);
+                    // there are some empty (corrupted) documents in ClueWeb, namely 0308wb-83.warc.gz
+                    if (originalHtml == null) {
+                        plainTexts.add(null);
+                        continue;
+                    }
+
+                    plainTexts.add(executor.submit(new Callable<String>()
+                    {
+                        @Override
+                        public String call()
+                                throws Exception
+                        {
+                            return boilerPlateRemoval.getMinimalHtml(originalHtml, null);
+                        }
+                    }));
                 }
 
-                if (!keepOriginalHTML) {
-                    rankedResults.originalHtml = null;
+                // collect the results in the original order
+                for (int i = 0; i < queryResultContainer.rankedResults.size(); i++) {
+                    QueryResultContainer.SingleRankedResult rankedResults = queryResultContainer.rankedResults
+                            .get(i);
+                    if (plainTexts.get(i) != null) {
+                        rankedResults.plainText = Futures.get(plainTexts.get(i));
+                    }
+
+                    if (!keepOriginalHTML) {
+                        rankedResults.originalHtml = null;
+                    }
                 }
-            }
 
-            // and save the query to output dir
-            File outputFile = new File(outputDir, queryResultContainer.qID + ".xml");
-            FileUtils.writeStringToFile(outputFile, queryResultContainer.toXML(), "utf-8");
-            System.out.println("Finished " + outputFile);
+                // and save the query to output dir
+                File outputFile = new File(outputDir, queryResultContainer.qID + ".xml");
+                FileUtils.writeStringToFile(outputFile, queryResultContainer.toXML(), "utf-8");
+                System.out.println("Finished " + outputFile);
+            }
+        }
+        finally {
+            executor.shutdownNow();
         }
-
     }
 }
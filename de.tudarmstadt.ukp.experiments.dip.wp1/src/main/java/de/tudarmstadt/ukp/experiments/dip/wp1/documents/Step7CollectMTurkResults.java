@@ -18,6 +18,8 @@
 
 package de.tudarmstadt.ukp.experiments.dip.wp1.documents;
 
+import de.tudarmstadt.ukp.experiments.dip.common.ClueWebIdCodec;
+import de.tudarmstadt.ukp.experiments.dip.wp1.data.LongObjectHashMap;
 import de.tudarmstadt.ukp.experiments.dip.wp1.data.QueryResultContainer;
 import de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers.MTurkOutputReader;
 import org.apache.commons.io.FileUtils;
@@ -266,8 +268,33 @@ public class Step7CollectMTurkResults
                 );
             }
 
+            // annotations by the encoded ClueWeb ID (in the original order)
+            LongObjectHashMap<List<MTurkAnnotation>> annotationsById = new LongObjectHashMap<>(
+                    listOfAnnotations.size());
+            for (MTurkAnnotation mtAnnotation : listOfAnnotations) {
+                long code = ClueWebIdCodec.encode(mtAnnotation.clueWeb);
+                if (code != ClueWebIdCodec.INVALID) {
+                    List<MTurkAnnotation> annotations = annotationsById.get(code);
+                    if (annotations == null) {
+                        annotations = new ArrayList<>();
+                        annotationsById.put(code, annotations);
+                    }
+                    annotations.add(mtAnnotation);
+                }
+            }
+
             for (QueryResultContainer.SingleRankedResult rankedResults : queryResultContainer.rankedResults) {
-                for (MTurkAnnotation mtAnnotation : listOfAnnotations) {
+                // only the annotations of the same document; all of them for non-ClueWeb IDs
+                List<MTurkAnnotation> candidates = listOfAnnotations;
+                long code = ClueWebIdCodec.encode(rankedResults.clueWebID);
+                if (code != ClueWebIdCodec.INVALID) {
+                    candidates = annotationsById.get(code);
+                    if (candidates == null) {
+                        candidates = Collections.emptyList();
+                    }
+                }
+
+                for (MTurkAnnotation mtAnnotation : candidates) {
                     String clueWeb = mtAnnotation.clueWeb;
                     if (rankedResults.clueWebID.equals(clueWeb)) {
                         List<QueryResultContainer.MTurkRelevanceVote> mTurkRelevanceVotes = rankedResults.mTurkRelevanceVotes;
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers;
+
+import org.apache.commons.io.input.CountingInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Append-only checkpoint of a long extraction from a gzipped WARC file, so an interrupted run
+ * can be resumed instead of restarted. It records the position up to which the records are done
+ * (the records are consumed in the file order), whether the whole WARC file was read, and the
+ * output containers written in their final form. The extracted documents are not kept here; the
+ * extraction saves them before it records the position.
+ * <p/>
+ * A position is the compressed offset of a gzip member and the number of records done in that
+ * member; the reading resumes by seeking to the member (see {@link PipelinedWARCReader}). The
+ * record count is needed as an exported WARC file may consist of a single member.
+ * <p/>
+ * Entries are only appended; an entry truncated by a crash is cut off when the checkpoint is
+ * opened again. The checkpoint is bound to the WARC file by its name and size.
+ *
+ * @author Ivan Habernal
+ */
+public class ExtractionCheckpoint
+        implements Closeable
+{
+    private static final byte HEADER = 'H';
+    private static final byte POSITION = 'P';
+    private static final byte WARC_FINISHED = 'F';
+    private static final byte CONTAINER = 'C';
+
+    private final File file;
+
+    private final DataOutputStream out;
+
+    // recovered state
+    private final boolean resumed;
+    private final Set<String> writtenContainers = new HashSet<>();
+    private long memberOffset;
+    private long recordsInMember;
+    private boolean warcFinished;
+
+    /**
+     * Opens the checkpoint; loads it if it exists, creates it otherwise
+     *
+     * @param file checkpoint file
+     * @param warc WARC file being extracted
+     * @throws IOException if the checkpoint belongs to another WARC file or cannot be read
+     */
+    public ExtractionCheckpoint(File file, File warc)
+            throws IOException
+    {
+        this.file = file;
+
+        long validLength = 0;
+        resumed = file.exists();
+        if (resumed) {
+            validLength = load(warc);
+            // cut off a partially written entry
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+
+        out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file, true)));
+
+        if (validLength == 0) {
+            out.writeByte(HEADER);
+            out.writeUTF(warc.getName());
+            out.writeLong(warc.length());
+        }
+    }
+
+    /**
+     * Reads all complete entries
+     *
+     * @return length of the valid part of the file
+     */
+    private long load(File warc)
+            throws IOException
+    {
+        long validLength = 0;
+
+        CountingInputStream counter = new CountingInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+        try (DataInputStream in = new DataInputStream(counter)) {
+            if (in.readByte() != HEADER) {
+                throw new IOException("Not a checkpoint file: " + file);
+            }
+            String warcName = in.readUTF();
+            long warcLength = in.readLong();
+            if (!warcName.equals(warc.getName()) || warcLength != warc.length()) {
+                throw new IOException("Checkpoint " + file + " belongs to " + warcName
+                        + " (" + warcLength + " bytes); delete it to start over");
+            }
+            validLength = counter.getByteCount();
+
+            while (true) {
+                byte type = in.readByte();
+                switch (type) {
+                case POSITION:
+                    long offset = in.readLong();
+                    long records = in.readLong();
+                    memberOffset = offset;
+                    recordsInMember = records;
+                    break;
+                case WARC_FINISHED:
+                    warcFinished = true;
+                    break;
+                case CONTAINER:
+                    String qID = in.readUTF();
+                    writtenContainers.add(qID);
+                    break;
+                default:
+                    throw new IOException("Corrupted checkpoint " + file + " at " + validLength);
+                }
+                validLength = counter.getByteCount();
+            }
+        }
+        catch (EOFException e) {
+            // end of the file or a truncated entry
+        }
+
+        return validLength;
+    }
+
+    /**
+     * Records that all records before the given gzip member and the leading records of the
+     * member are done
+     *
+     * @param memberOffset    compressed offset of the gzip member
+     * @param recordsInMember number of records done in the member
+     * @throws IOException exception
+     */
+    public void positionDone(long memberOffset, long recordsInMember)
+            throws IOException
+    {
+        out.writeByte(POSITION);
+        out.writeLong(memberOffset);
+        out.writeLong(recordsInMember);
+        out.flush();
+    }
+
+    /**
+     * Records that the WARC file was read completely
+     *
+     * @throws IOException exception
+     */
+    public void warcFinished()
+            throws IOException
+    {
+        out.writeByte(WARC_FINISHED);
+        out.flush();
+    }
+
+    /**
+     * Records a written output container
+     *
+     * @param qID query ID of the container
+     * @throws IOException exception
+     */
+    public void containerWritten(String qID)
+            throws IOException
+    {
+        out.writeByte(CONTAINER);
+        out.writeUTF(qID);
+        out.flush();
+    }
+
+    /**
+     * Returns whether the checkpoint was left by an interrupted run
+     *
+     * @return true if the checkpoint file existed
+     */
+    public boolean isResumed()
+    {
+        return resumed;
+    }
+
+    /**
+     * Returns the query IDs of the containers written before
+     *
+     * @return set
+     */
+    public Set<String> getWrittenContainers()
+    {
+        return writtenContainers;
+    }
+
+    /**
+     * Returns the compressed offset of the gzip member to resume the reading at
+     *
+     * @return offset (0 if nothing was done before)
+     */
+    public long getMemberOffset()
+    {
+        return memberOffset;
+    }
+
+    /**
+     * Returns the number of leading records of the member at {@link #getMemberOffset()} that
+     * were done before and can be skipped
+     *
+     * @return number of records
+     */
+    public long getRecordsInMember()
+    {
+        return recordsInMember;
+    }
+
+    public boolean isWarcFinished()
+    {
+        return warcFinished;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        out.close();
+    }
+
+    /**
+     * Closes and deletes the checkpoint once the extraction is complete
+     *
+     * @throws IOException exception
+     */
+    public void delete()
+            throws IOException
+    {
+        close();
+        if (!file.delete()) {
+            throw new IOException("Cannot delete " + file);
+        }
+    }
+}
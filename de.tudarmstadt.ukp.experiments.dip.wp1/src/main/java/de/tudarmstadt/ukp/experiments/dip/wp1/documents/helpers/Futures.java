@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Waiting for the results of tasks submitted to an executor
+ *
+ * @author Ivan Habernal
+ */
+public class Futures
+{
+    private Futures()
+    {
+        // static methods only
+    }
+
+    /**
+     * Waits for the result of the task
+     *
+     * @param future submitted task
+     * @param <V>    result
+     * @return result
+     * @throws IOException if the task failed (with the failure as the cause) or the waiting was
+     *                     interrupted
+     */
+    public static <V> V get(Future<V> future)
+            throws IOException
+    {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        catch (ExecutionException e) {
+            throw new IOException("Processing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers;
+
+import com.martinkl.warc.WARCRecord;
+import de.tudarmstadt.ukp.experiments.dip.common.GzipMemberReader;
+import de.tudarmstadt.ukp.experiments.dip.common.WARCRecordParser;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a gzipped WARC file with decompression and record parsing on the calling thread and
+ * the per-record processing (decoding, cleaning) on a pool of worker threads. At most
+ * {@code queueSize} records are in flight, so the memory stays bounded when the workers are
+ * slower than the reader. The results are consumed on the calling thread in the order of the
+ * records in the file, so the consumer needs no synchronization.
+ * <p/>
+ * The file is read one gzip member at a time ({@link GzipMemberReader}), so the reading can
+ * start at a member offset and a corrupt member (or a truncated end of the file) is reported
+ * and skipped instead of failing the whole run.
+ *
+ * @author Ivan Habernal
+ */
+public class PipelinedWARCReader
+{
+    /**
+     * Callbacks of {@link #read(File, long, long, RecordHandler)}
+     *
+     * @param <K> key of a selected record
+     * @param <V> result of the processing
+     */
+    public interface RecordHandler<K, V>
+    {
+        /**
+         * Called on the reading thread for each record
+         *
+         * @param record         record
+         * @param memberOffset   compressed offset of the gzip member holding the record
+         * @param recordInMember number of the record in the member (1-based)
+         * @return key or null if the record should be skipped
+         */
+        K select(WARCRecord record, long memberOffset, long recordInMember);
+
+        /**
+         * Called on a worker thread for each selected record
+         *
+         * @param record record
+         * @return result
+         * @throws Exception exception
+         */
+        V process(WARCRecord record)
+                throws Exception;
+
+        /**
+         * Called on the reading thread with the results, in the order of the records
+         *
+         * @param key   key returned by {@link #select(WARCRecord, long, long)}
+         * @param value result returned by {@link #process(WARCRecord)}
+         * @throws IOException exception
+         */
+        void consume(K key, V value)
+                throws IOException;
+    }
+
+    private final int threads;
+    private final int queueSize;
+
+    private long corruptMembers;
+
+    /**
+     * @param threads   number of worker threads
+     * @param queueSize maximum number of records being processed or waiting to be consumed
+     */
+    public PipelinedWARCReader(int threads, int queueSize)
+    {
+        if (threads < 1 || queueSize < 1) {
+            throw new IllegalArgumentException("At least one thread and queue slot required");
+        }
+
+        this.threads = threads;
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Reads the file from the given gzip member on (from offset 0 for the whole file)
+     *
+     * @param warc         warc.gz file
+     * @param memberOffset compressed offset of the gzip member to start at
+     * @param skipRecords  number of leading records of that member to skip
+     * @param handler      callbacks
+     * @param <K>          key of a selected record
+     * @param <V>          result of the processing
+     * @return number of records read (without the skipped ones)
+     * @throws IOException if the file cannot be read or the processing of a record fails
+     */
+    public <K, V> long read(File warc, long memberOffset, long skipRecords,
+            final RecordHandler<K, V> handler)
+            throws IOException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // selected records in the file order
+        Deque<K> keys = new ArrayDeque<>(queueSize);
+        Deque<Future<V>> futures = new ArrayDeque<>(queueSize);
+
+        long count = 0;
+        corruptMembers = 0;
+
+        FileSystem fs = FileSystem.getLocal(new Configuration());
+        GzipMemberReader reader = new GzipMemberReader(
+                fs.open(new Path(warc.getAbsolutePath())), 0);
+        try {
+            reader.seek(memberOffset);
+
+            // decompressed content of the current member
+            DataInputStream memberInput = null;
+            long recordInMember = 0;
+
+            while (true) {
+                final WARCRecord record;
+                try {
+                    if (memberInput == null) {
+                        if (!reader.nextMember()) {
+                            // end of file
+                            break;
+                        }
+                        memberInput = new DataInputStream(
+                                new BufferedInputStream(reader.getMemberStream()));
+                        recordInMember = 0;
+                    }
+                    record = WARCRecordParser.readRecord(memberInput);
+                }
+                catch (IOException | IllegalStateException e) {
+                    // malformed gzip data or records; continue with the next readable member
+                    System.err.println("Skipping corrupt gzip member at offset "
+                            + reader.getMemberOffset() + " in " + warc + ": " + e.getMessage());
+                    corruptMembers++;
+                    memberInput = null;
+                    if (!reader.skipToNextMember()) {
+                        break;
+                    }
+                    continue;
+                }
+
+                if (record == null) {
+                    // end of the member
+                    memberInput = null;
+                    continue;
+                }
+                recordInMember++;
+
+                // done before
+                if (reader.getMemberOffset() == memberOffset && recordInMember <= skipRecords) {
+                    continue;
+                }
+                count++;
+
+                K key = handler.select(record, reader.getMemberOffset(), recordInMember);
+                if (key == null) {
+                    continue;
+                }
+
+                keys.add(key);
+                futures.add(executor.submit(new Callable<V>()
+                {
+                    @Override
+                    public V call()
+                            throws Exception
+                    {
+                        return handler.process(record);
+                    }
+                }));
+
+                // block only if the queue is full
+                while (!futures.isEmpty() && (futures.size() >= queueSize || futures.peek()
+                        .isDone())) {
+                    handler.consume(keys.poll(), Futures.get(futures.poll()));
+                }
+            }
+
+            while (!futures.isEmpty()) {
+                handler.consume(keys.poll(), Futures.get(futures.poll()));
+            }
+        }
+        finally {
+            reader.close();
+            executor.shutdownNow();
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the number of corrupt gzip members skipped by the last {@code read}
+     *
+     * @return number of members
+     */
+    public long getCorruptMembers()
+    {
+        return corruptMembers;
+    }
+}
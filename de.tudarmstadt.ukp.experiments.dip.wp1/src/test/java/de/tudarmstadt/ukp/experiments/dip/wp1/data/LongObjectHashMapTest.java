@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.wp1.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Ivan Habernal
+ */
+public class LongObjectHashMapTest
+{
+    @Test
+    public void testCollisions()
+            throws Exception
+    {
+        // keys falling into the same slot of the initial table
+        int mask = LongObjectHashMap.tableSize(0) - 1;
+        int slot = LongObjectHashMap.hash(1) & mask;
+        List<Long> colliding = new ArrayList<>();
+        for (long key = 1; colliding.size() < 5; key++) {
+            if ((LongObjectHashMap.hash(key) & mask) == slot) {
+                colliding.add(key);
+            }
+        }
+
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        for (long key : colliding) {
+            assertNull(map.put(key, "v" + key));
+        }
+        assertEquals(colliding.size(), map.size());
+        for (long key : colliding) {
+            assertEquals("v" + key, map.get(key));
+        }
+
+        // replacing a value in the middle of the probe sequence
+        long middle = colliding.get(2);
+        assertEquals("v" + middle, map.put(middle, "replaced"));
+        assertEquals("replaced", map.get(middle));
+        assertEquals(colliding.size(), map.size());
+    }
+
+    @Test
+    public void testGrowth()
+            throws Exception
+    {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        int count = 10000;
+        for (long i = 0; i < count; i++) {
+            // multiples of the table size used to collide before the keys are spread
+            long key = i * 1024;
+            assertNull(map.put(key, i));
+        }
+        assertEquals(count, map.size());
+
+        for (long i = 0; i < count; i++) {
+            assertEquals(Long.valueOf(i), map.get(i * 1024));
+        }
+
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        long[] expected = new long[count];
+        for (int i = 0; i < count; i++) {
+            expected[i] = i * 1024L;
+        }
+        assertArrayEquals(expected, keys);
+    }
+
+    @Test
+    public void testMissingKeys()
+            throws Exception
+    {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        assertNull(map.get(42));
+        assertFalse(map.containsKey(42));
+
+        map.put(42, "a");
+        map.put(-1, "b");
+        assertNull(map.get(43));
+        assertNull(map.get(0));
+        assertFalse(map.containsKey(0));
+        assertEquals("b", map.get(-1));
+        assertEquals(2, map.size());
+
+        // the key 0 is stored next to the table
+        assertNull(map.put(0, "zero"));
+        assertEquals("zero", map.get(0));
+        assertTrue(map.containsKey(0));
+        assertEquals(3, map.size());
+        assertEquals(3, map.keys().length);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValue()
+            throws Exception
+    {
+        new LongObjectHashMap<String>().put(1, null);
+    }
+}
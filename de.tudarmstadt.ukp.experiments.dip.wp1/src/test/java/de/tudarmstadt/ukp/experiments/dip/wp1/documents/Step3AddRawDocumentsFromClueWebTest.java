@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.tudarmstadt.ukp.experiments.dip.wp1.documents;
+
+import de.tudarmstadt.ukp.experiments.dip.wp1.data.QueryResultContainer;
+import de.tudarmstadt.ukp.experiments.dip.wp1.documents.helpers.ExtractionCheckpoint;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Ivan Habernal
+ */
+public class Step3AddRawDocumentsFromClueWebTest
+{
+    private static final int DOCUMENTS = 10;
+
+    // documents 0-6 have their own gzip member, 7-9 share the last one
+    private static final int MEMBERS = 8;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File inputDir;
+    private File outputDir;
+    private File warc;
+
+    // compressed offsets of the members
+    private long[] memberOffsets;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        inputDir = temporaryFolder.newFolder("input");
+        outputDir = temporaryFolder.newFolder("output");
+        warc = new File(temporaryFolder.getRoot(), "export.warc.gz");
+
+        // documents 0-4 retrieved for q1, 5-9 for q2
+        for (int q = 0; q < 2; q++) {
+            QueryResultContainer container = new QueryResultContainer();
+            container.qID = "q" + (q + 1);
+            for (int i = q * 5; i < q * 5 + 5; i++) {
+                QueryResultContainer.SingleRankedResult result =
+                        new QueryResultContainer.SingleRankedResult();
+                result.rank = i % 5 + 1;
+                result.clueWebID = trecId(i);
+                result.relevant = Boolean.TRUE.toString();
+                container.rankedResults.add(result);
+            }
+            FileUtils.writeStringToFile(new File(inputDir, container.qID + ".xml"),
+                    container.toXML(), "utf-8");
+        }
+    }
+
+    private static String trecId(int document)
+    {
+        return String.format("clueweb12-0000wb-00-%05d", document);
+    }
+
+    private static String html(int document)
+    {
+        return "<html><body><p>Document " + document + "</p></body></html>";
+    }
+
+    private static String record(int document)
+    {
+        String content = "HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/html; charset=utf-8\r\n"
+                + "\r\n"
+                + html(document);
+
+        return "WARC/1.0\r\n"
+                + "WARC-Type: response\r\n"
+                + "WARC-TREC-ID: " + trecId(document) + "\r\n"
+                + "Content-Length: " + content.getBytes(StandardCharsets.UTF_8).length + "\r\n"
+                + "\r\n"
+                + content
+                + "\r\n\r\n";
+    }
+
+    /**
+     * Writes the warc file; the deflate data of the given member is corrupted
+     *
+     * @param corruptMember member number or -1
+     */
+    private void writeWarc(int corruptMember)
+            throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        memberOffsets = new long[MEMBERS];
+        for (int m = 0; m < MEMBERS; m++) {
+            memberOffsets[m] = out.size();
+
+            StringBuilder records = new StringBuilder(record(m));
+            if (m == MEMBERS - 1) {
+                for (int i = MEMBERS; i < DOCUMENTS; i++) {
+                    records.append(record(i));
+                }
+            }
+            writeMember(out, records.toString());
+        }
+
+        byte[] bytes = out.toByteArray();
+        if (corruptMember >= 0) {
+            // invalid block type in the first deflate block after the 10-byte header
+            bytes[(int) memberOffsets[corruptMember] + 10] = 0x07;
+        }
+        FileUtils.writeByteArrayToFile(warc, bytes);
+    }
+
+    private static void writeMember(OutputStream out, String records)
+            throws IOException
+    {
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(records.getBytes(StandardCharsets.UTF_8));
+        gzip.finish();
+    }
+
+    /**
+     * Saves the containers with the given html of the first documents, as an interrupted run
+     * would leave them in the output dir
+     */
+    private void writePartialOutput(int documentsDone, int corruptDocument)
+            throws IOException
+    {
+        for (File f : FileUtils.listFiles(inputDir, new String[] { "xml" }, false)) {
+            QueryResultContainer container = QueryResultContainer
+                    .fromXML(FileUtils.readFileToString(f, "utf-8"));
+            for (QueryResultContainer.SingleRankedResult result : container.rankedResults) {
+                int document = Integer.parseInt(result.clueWebID.substring(20));
+                if (document < documentsDone && document != corruptDocument) {
+                    result.originalHtml = "done " + document;
+                }
+            }
+            FileUtils.writeStringToFile(new File(outputDir, container.qID + ".xml"),
+                    container.toXML(), "utf-8");
+        }
+    }
+
+    private void run()
+            throws IOException
+    {
+        Step3AddRawDocumentsFromClueWeb.main(new String[] { inputDir.getAbsolutePath(),
+                warc.getAbsolutePath(), outputDir.getAbsolutePath(), "2" });
+    }
+
+    /**
+     * Checks the output; documents below {@code documentsDone} must keep the html of the
+     * interrupted run
+     */
+    private void assertOutput(int documentsDone, int corruptDocument)
+            throws IOException
+    {
+        assertFalse(new File(outputDir, Step3AddRawDocumentsFromClueWeb.CHECKPOINT_FILE)
+                .exists());
+
+        int results = 0;
+        for (String qID : new String[] { "q1", "q2" }) {
+            QueryResultContainer container = QueryResultContainer.fromXML(
+                    FileUtils.readFileToString(new File(outputDir, qID + ".xml"), "utf-8"));
+            for (QueryResultContainer.SingleRankedResult result : container.rankedResults) {
+                int document = Integer.parseInt(result.clueWebID.substring(20));
+                if (document == corruptDocument) {
+                    assertNull(result.originalHtml);
+                    assertEquals(Boolean.FALSE.toString(), result.relevant);
+                }
+                else {
+                    assertEquals(document < documentsDone ? "done " + document : html(document),
+                            result.originalHtml);
+                    assertEquals(Boolean.TRUE.toString(), result.relevant);
+                }
+                results++;
+            }
+        }
+        assertEquals(DOCUMENTS, results);
+    }
+
+    @Test
+    public void testCorruptMember()
+            throws Exception
+    {
+        writeWarc(5);
+        run();
+        assertOutput(0, 5);
+    }
+
+    @Test
+    public void testResumeBeforeCorruptMember()
+            throws Exception
+    {
+        writeWarc(5);
+
+        // documents 0-3 were done by the interrupted run
+        writePartialOutput(4, -1);
+        try (ExtractionCheckpoint checkpoint = new ExtractionCheckpoint(
+                new File(outputDir, Step3AddRawDocumentsFromClueWeb.CHECKPOINT_FILE), warc)) {
+            checkpoint.positionDone(memberOffsets[3], 1);
+        }
+
+        run();
+        assertOutput(4, 5);
+    }
+
+    @Test
+    public void testResumeAfterCorruptMember()
+            throws Exception
+    {
+        writeWarc(5);
+
+        // documents 0-7 were done by the interrupted run, which skipped the corrupt member
+        writePartialOutput(8, 5);
+        try (ExtractionCheckpoint checkpoint = new ExtractionCheckpoint(
+                new File(outputDir, Step3AddRawDocumentsFromClueWeb.CHECKPOINT_FILE), warc)) {
+            checkpoint.positionDone(memberOffsets[4], 1);
+            checkpoint.positionDone(memberOffsets[7], 1);
+        }
+
+        run();
+        assertOutput(8, 5);
+    }
+}